@@ -0,0 +1,80 @@
+import java.util.*;
+import java.io.*;
+
+class AdminUser extends User {
+    private final Set<String> petIds;   // pets this admin added, by id so a large import pins no Pet objects
+    private List<AdoptionApplication> allApplications;
+    private final String shelter;
+
+    public AdminUser(String username, String password, String email) {
+        this(username, password, email, ShelterNetwork.DEFAULT);
+    }
+
+    public AdminUser(String username, String password, String email, String shelter) {
+        super(username, password, email);
+        this.petIds = Collections.synchronizedSet(new LinkedHashSet<>());
+        this.allApplications = Collections.synchronizedList(new ArrayList<>());
+        this.shelter = shelter;
+    }
+
+    AdminUser(String username, PasswordHasher.Credential credential, String email, String shelter) {
+        super(username, credential, email);
+        this.petIds = Collections.synchronizedSet(new LinkedHashSet<>());
+        this.allApplications = Collections.synchronizedList(new ArrayList<>());
+        this.shelter = shelter;
+    }
+
+    public String getShelter() { return shelter; }
+
+    public void addPet(Pet pet) {
+        petIds.add(pet.getUniqueId());
+    }
+
+    public void addApplication(AdoptionApplication application) {
+        allApplications.add(application);
+    }
+
+    Set<String> getPetIds() { return petIds; }
+
+    void forgetApplications(Collection<AdoptionApplication> archived) {
+        Set<AdoptionApplication> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+        gone.addAll(archived);
+        allApplications.removeIf(gone::contains);
+    }
+
+    public void reviewApplications(ScreenPager pager, ApplicationStore applications) {
+        PrintStream out = pager.out();
+        out.print(ConsoleRenderer.PENDING_APPLICATIONS);
+        if (!applications.hasPending()) {
+            out.println("\n    == No pending applications == ");
+            return;
+        }
+        
+        String cursor = null;
+        do {
+            Page<AdoptionApplication> page = applications.pendingPage(cursor, ScreenPager.PAGE_SIZE);
+            for (AdoptionApplication app : page.items) {
+                if (app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING
+                        && !pager.print(ConsoleRenderer.appendApplicationCard(pager.row(), app))) {
+                    return;
+                }
+            }
+            cursor = page.next;
+        } while (cursor != null);
+    }
+
+    @Override
+    public void displayDashboard(PrintStream out) {
+        out.print(ConsoleRenderer.ADMIN_DASHBOARD);
+        out.println("Welcome, " + getUsername());
+        out.println("Shelter: " + shelter);
+        out.println("Pets in System: " + petIds.size());
+        out.println("Total Applications: " + allApplications.size());
+    }
+
+    // Dashboard with system-wide aggregates; constant time however long the history is
+    public void displayDashboard(PrintStream out, AdoptionStats stats) {
+        displayDashboard(out);
+        stats.print(out);
+    }
+}
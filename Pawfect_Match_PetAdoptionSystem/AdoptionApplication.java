@@ -0,0 +1,65 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Adoption Application class
+class AdoptionApplication {
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id;
+    private User applicant;
+    private Pet pet;
+    private Instant filedAt;
+    private volatile ApplicationStatus status;
+    private volatile Instant decidedAt; // null while pending, or when restored from records without it
+    ApplicationStore store; // set when the application is added to a store
+
+    public enum ApplicationStatus {
+        PENDING, APPROVED, REJECTED, EXPIRED
+    }
+
+    public AdoptionApplication(User applicant, Pet pet) {
+        this(NEXT_ID.getAndIncrement(), applicant, pet, Instant.now(), ApplicationStatus.PENDING);
+    }
+
+    // Used when restoring saved applications
+    AdoptionApplication(long id, User applicant, Pet pet, Instant filedAt, ApplicationStatus status) {
+        this.id = id;
+        this.applicant = applicant;
+        this.pet = pet;
+        this.filedAt = filedAt;
+        this.status = status;
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+    }
+
+    // Id-only stand-in for range lookups in id-ordered sets; leaves the id sequence alone
+    AdoptionApplication(long id) {
+        this.id = id;
+    }
+
+    // Getters
+    public long getId() { return id; }
+    public User getApplicant() { return applicant; }
+    public Pet getPet() { return pet; }
+    public Instant getFiledAt() { return filedAt; }
+    public LocalDate getApplicationDate() { return filedAt.atZone(ZoneId.systemDefault()).toLocalDate(); }
+    public ApplicationStatus getStatus() { return status; }
+    public Instant getDecidedAt() { return decidedAt; }
+    public void setStatus(ApplicationStatus status) {
+        setStatus(status, status == ApplicationStatus.PENDING ? null : Instant.now());
+    }
+
+    // Restores a decision made at a known time (null when unknown)
+    void setStatus(ApplicationStatus status, Instant decidedAt) {
+        ApplicationStatus old = this.status;
+        if (old == status) {
+            return;   // a replayed decision keeps its first time, which the store's decided index is ordered by
+        }
+        this.decidedAt = decidedAt;
+        this.status = status;
+        if (store != null) {
+            store.statusChanged(this, old);   // keep the pending indexes in sync
+        }
+    }
+}
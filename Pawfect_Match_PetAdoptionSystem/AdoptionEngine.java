@@ -0,0 +1,160 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Adoption engine shared by all sessions. Each pet maps to one lock stripe, so decisions
+// on the same pet are serialized while different pets proceed in parallel.
+class AdoptionEngine {
+    private static final int STRIPES = 256;
+
+    // Result of an approval: whether it won, plus the competing applications it rejected
+    static class Decision {
+        final boolean approved;
+        final List<AdoptionApplication> autoRejected;
+
+        Decision(boolean approved, List<AdoptionApplication> autoRejected) {
+            this.approved = approved;
+            this.autoRejected = autoRejected;
+        }
+    }
+
+    private final Object[] locks = new Object[STRIPES];
+    private final ApplicationStore applications = new ApplicationStore();
+    private final ConcurrentHashMap<String, List<AdoptionApplication>> byPet = new ConcurrentHashMap<>();
+
+    public AdoptionEngine() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(Pet pet) {
+        int h = pet.getUniqueId().hashCode() * 0x9E3779B9;
+        return locks[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    // The application reserves the pet (AVAILABLE -> PENDING); returns null when someone else already has.
+    // Losing applicants fail on the CAS without taking a lock.
+    public AdoptionApplication apply(RegularUser user, Pet pet) {
+        if (!pet.transition(Pet.AdoptionStatus.AVAILABLE, Pet.AdoptionStatus.PENDING)) {
+            return null;
+        }
+        AdoptionApplication application = new AdoptionApplication(user, pet);
+        synchronized (lockFor(pet)) {
+            track(application);
+        }
+        return application;
+    }
+
+    // Adds an already decided application, e.g. while restoring saved data; see reconcile()
+    public void restore(AdoptionApplication application) {
+        synchronized (lockFor(application.getPet())) {
+            track(application);
+        }
+    }
+
+    private void track(AdoptionApplication application) {
+        byPet.computeIfAbsent(application.getPet().getUniqueId(), k -> new ArrayList<>()).add(application);
+        applications.add(application);
+    }
+
+    // Exactly one application per pet can win (PENDING -> ADOPTED); every other pending one
+    // is rejected in the same step
+    public Decision approve(AdoptionApplication application) {
+        Pet pet = application.getPet();
+        synchronized (lockFor(pet)) {
+            if (application.getStatus() != AdoptionApplication.ApplicationStatus.PENDING
+                    || !pet.transition(Pet.AdoptionStatus.PENDING, Pet.AdoptionStatus.ADOPTED)) {
+                return new Decision(false, Collections.emptyList());
+            }
+            application.setStatus(AdoptionApplication.ApplicationStatus.APPROVED);
+            List<AdoptionApplication> rejected = new ArrayList<>();
+            for (AdoptionApplication other : byPet.get(pet.getUniqueId())) {
+                if (other != application && other.getStatus() == AdoptionApplication.ApplicationStatus.PENDING) {
+                    other.setStatus(AdoptionApplication.ApplicationStatus.REJECTED);
+                    rejected.add(other);
+                }
+            }
+            return new Decision(true, rejected);
+        }
+    }
+
+    public boolean reject(AdoptionApplication application) {
+        return close(application, AdoptionApplication.ApplicationStatus.REJECTED);
+    }
+
+    // Pending too long: closes the application without a decision
+    public boolean expire(AdoptionApplication application) {
+        return close(application, AdoptionApplication.ApplicationStatus.EXPIRED);
+    }
+
+    // Closes a pending application and releases the pet (PENDING -> AVAILABLE) once nobody holds it
+    private boolean close(AdoptionApplication application, AdoptionApplication.ApplicationStatus status) {
+        Pet pet = application.getPet();
+        synchronized (lockFor(pet)) {
+            if (application.getStatus() != AdoptionApplication.ApplicationStatus.PENDING) {
+                return false;
+            }
+            application.setStatus(status);
+            if (!hasPending(pet)) {
+                pet.transition(Pet.AdoptionStatus.PENDING, Pet.AdoptionStatus.AVAILABLE);
+            }
+            return true;
+        }
+    }
+
+    private boolean hasPending(Pet pet) {
+        for (AdoptionApplication app : byPet.getOrDefault(pet.getUniqueId(), Collections.emptyList())) {
+            if (app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // After a restore: pets with pending applications are reserved, pets whose applications
+    // were all turned down are free again. Older data kept pets AVAILABLE while applications piled up.
+    public void reconcile() {
+        for (List<AdoptionApplication> list : byPet.values()) {
+            Pet pet = list.get(0).getPet();
+            synchronized (lockFor(pet)) {
+                boolean pending = hasPending(pet);
+                if (pending && pet.getStatus() == Pet.AdoptionStatus.AVAILABLE) {
+                    pet.setStatus(Pet.AdoptionStatus.PENDING);
+                } else if (!pending && pet.getStatus() == Pet.AdoptionStatus.PENDING) {
+                    pet.setStatus(Pet.AdoptionStatus.AVAILABLE);
+                }
+            }
+        }
+    }
+
+    // Drops archived (decided) applications from memory
+    public void forget(Collection<AdoptionApplication> archived) {
+        for (AdoptionApplication app : archived) {
+            synchronized (lockFor(app.getPet())) {
+                List<AdoptionApplication> list = byPet.get(app.getPet().getUniqueId());
+                if (list != null) {
+                    list.remove(app);
+                    if (list.isEmpty()) {
+                        byPet.remove(app.getPet().getUniqueId());
+                    }
+                }
+            }
+        }
+        applications.removeAll(archived);
+    }
+
+    public List<AdoptionApplication> getApplications() {
+        return applications.getAll();
+    }
+
+    public ApplicationStore getStore() {
+        return applications;
+    }
+
+    public List<AdoptionApplication> getApplicationsFor(Pet pet) {
+        synchronized (lockFor(pet)) {
+            List<AdoptionApplication> list = byPet.get(pet.getUniqueId());
+            return list == null ? new ArrayList<>() : new ArrayList<>(list);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.*;
+import java.io.*;
+import java.nio.file.Path;
+
+// The actions behind the menus, free of any console I/O, so the interactive menus, server
+// sessions and batch mode all run the same code. Each action persists and records metrics.
+class AdoptionService {
+    private final UserRegistry users;
+    private final ShelterNetwork catalog;
+    private final AdoptionEngine engine;
+    private final PersistentStore store;
+    private final PetIdSequence petIds;
+    private final SearchCache searchCache = new SearchCache(Integer.getInteger("pawfect.search.cache", 256),
+        MaintenanceScheduler.duration("pawfect.search.ttl", "PT5M"));
+    private volatile PetSearchIndex searchIndex;
+    private volatile RecommendationEngine recommender;
+
+    AdoptionService(UserRegistry users, ShelterNetwork catalog, AdoptionEngine engine, PersistentStore store) {
+        this.users = users;
+        this.catalog = catalog;
+        this.engine = engine;
+        this.store = store;
+        this.petIds = new PetIdSequence(catalog);
+        searchIndex = new PetSearchIndex(catalog);
+        searchIndex.rebuild();
+        catalog.addListener(searchIndex);
+        recommender = new RecommendationEngine(catalog);
+        recommender.rebuild();
+        catalog.addListener(recommender);
+        catalog.addListener(searchCache);
+    }
+
+    SearchCache searchCache() {
+        return searchCache;
+    }
+
+    // Builds fresh search and recommendation indexes while the old ones keep serving, then swaps them in.
+    // The new ones listen before the catalog scan, so no change made meanwhile is missed.
+    void rebuildIndexes() {
+        PetSearchIndex freshSearch = new PetSearchIndex(catalog);
+        catalog.addListener(freshSearch);
+        freshSearch.rebuild();
+        PetSearchIndex oldSearch = searchIndex;
+        searchIndex = freshSearch;
+        catalog.removeListener(oldSearch);
+
+        RecommendationEngine freshRecommender = new RecommendationEngine(catalog);
+        catalog.addListener(freshRecommender);
+        freshRecommender.rebuild();
+        RecommendationEngine oldRecommender = recommender;
+        recommender = freshRecommender;
+        catalog.removeListener(oldRecommender);
+    }
+
+    public boolean isUsernameTaken(String username) {
+        return users.isUsernameTaken(username);
+    }
+
+    // Returns null when the username is taken
+    public RegularUser register(String username, String password, String email) {
+        if (users.isUsernameTaken(username)) {
+            return null;   // skip hashing the password
+        }
+        RegularUser user = new RegularUser(username, password, email);
+        if (!users.registerUser(user)) {
+            return null;
+        }
+        store.userRegistered(user);
+        return user;
+    }
+
+    public RegularUser login(String username, String password) {
+        long start = System.nanoTime();
+        RegularUser user = users.loginUser(username, password);
+        Metrics.AUTHENTICATE.since(start);
+        if (user == null) {
+            Metrics.LOGIN_FAILURES.increment();
+        }
+        return user;
+    }
+
+    public AdminUser loginAdmin(String username, String password) {
+        long start = System.nanoTime();
+        AdminUser admin = users.loginAdmin(username, password);
+        Metrics.AUTHENTICATE.since(start);
+        if (admin == null) {
+            Metrics.LOGIN_FAILURES.increment();
+        }
+        return admin;
+    }
+
+    public SearchCache.Listing availableListing() {
+        return searchCache.get("", 0, Pet.AdoptionStatus.AVAILABLE,
+            () -> catalog.findByStatus(Pet.AdoptionStatus.AVAILABLE));
+    }
+
+    // Available pets only, species is a partial case-insensitive match
+    public SearchCache.Listing searchListing(String species, int maxAge) {
+        long start = System.nanoTime();
+        SearchCache.Listing results = searchCache.get(species, maxAge, Pet.AdoptionStatus.AVAILABLE,
+            () -> catalog.search(species, maxAge, Pet.AdoptionStatus.AVAILABLE));
+        Metrics.SEARCH_PETS.since(start);
+        return results;
+    }
+
+    public List<Pet> availablePets() {
+        return availableListing().pets;
+    }
+
+    public List<Pet> search(String species, int maxAge) {
+        return searchListing(species, maxAge).pets;
+    }
+
+    public List<Pet> keywordSearch(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    public List<Pet> recommend(RegularUser user, String species, int age, int limit) {
+        return recommender.recommend(user, species, age, limit);
+    }
+
+    // Available pet with exactly this name (ignoring case), or null
+    public Pet findAvailable(String name) {
+        return catalog.findByName(name, Pet.AdoptionStatus.AVAILABLE);
+    }
+
+    // Returns null when the pet was reserved or adopted meanwhile
+    // The latency covers refused and failed attempts too, so contention shows up in it
+    public AdoptionApplication apply(RegularUser user, Pet pet) {
+        long start = System.nanoTime();
+        try {
+            AdoptionApplication application = engine.apply(user, pet);
+            if (application == null) {
+                Metrics.APPLY_CONFLICTS.increment();
+                return null;
+            }
+            // Route to the admin of the shelter that has the pet
+            AdminUser admin = users.primaryAdmin(catalog.shelterOf(pet.getUniqueId()));
+            if (admin != null) {
+                admin.addApplication(application);
+            }
+            store.applicationFiled(application);
+            Metrics.APPLICATIONS_FILED.increment();
+            return application;
+        } finally {
+            Metrics.APPLY.since(start);
+        }
+    }
+
+    // The application queue of the admin's shelter
+    public ApplicationStore applications(AdminUser admin) {
+        return catalog.shelter(admin.getShelter()).applications;
+    }
+
+    // Cursor pages for listings too long to build in one go; a limit below 1 is taken as 1
+    public Page<Pet> petPage(Pet.AdoptionStatus status, PetOrder order, String cursor, int limit) {
+        return catalog.page(status, order, cursor, Math.max(1, limit));
+    }
+
+    public Page<AdoptionApplication> pendingPage(AdminUser admin, String cursor, int limit) {
+        return applications(admin).pendingPage(cursor, Math.max(1, limit));
+    }
+
+    public Page<AdoptionApplication> historyPage(RegularUser user, String cursor, int limit) {
+        return user.getApplications(cursor, Math.max(1, limit));
+    }
+
+    // Other pending applications for the pet are rejected in the same step
+    public AdoptionEngine.Decision approve(AdoptionApplication application) {
+        long start = System.nanoTime();
+        try {
+            AdoptionEngine.Decision decision = engine.approve(application);
+            if (!decision.approved) {
+                return decision;
+            }
+            store.applicationDecided(application);
+            for (AdoptionApplication rejected : decision.autoRejected) {
+                store.applicationDecided(rejected);
+            }
+            Metrics.APPROVALS.increment();
+            Metrics.APPROVAL_RATE.record();
+            Metrics.REJECTIONS.add(decision.autoRejected.size());
+            return decision;
+        } finally {
+            Metrics.APPROVE_REJECT.since(start);
+        }
+    }
+
+    // Returns false when the application was already decided
+    public boolean reject(AdoptionApplication application) {
+        long start = System.nanoTime();
+        try {
+            if (!engine.reject(application)) {
+                return false;
+            }
+            store.applicationDecided(application);
+            Metrics.REJECTIONS.increment();
+            return true;
+        } finally {
+            Metrics.APPROVE_REJECT.since(start);
+        }
+    }
+
+    // Adds the pet to the admin's shelter under a fresh id (retrying if an import took the id first)
+    public Pet addPet(AdminUser admin, String name, String species, int age, String breed) {
+        Pet pet;
+        do {
+            pet = new Pet(name, petIds.nextId(), species, age, breed);
+        } while (!catalog.addPet(pet, admin.getShelter()));
+        admin.addPet(pet);
+        store.petAdded(pet, admin);
+        return pet;
+    }
+
+    public PetImporter.Result importPets(Path file, AdminUser owner) throws IOException {
+        return new PetImporter(catalog, store, petIds).importFile(file, owner);
+    }
+
+    public int exportPets(Path file) throws IOException {
+        return PetExporter.export(catalog, file);
+    }
+}
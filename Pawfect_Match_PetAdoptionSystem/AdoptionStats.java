@@ -0,0 +1,168 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.io.*;
+import java.time.Duration;
+
+// Adoption statistics kept up to date from catalog and application events, so the admin
+// dashboard and reports read a handful of counters instead of rescanning every list
+class AdoptionStats implements CatalogListener, ApplicationListener {
+    private static final Pet.AdoptionStatus[] PET_STATUSES = Pet.AdoptionStatus.values();
+
+    // Pets per species and status, flat at species code * statuses + status. Copied on write when a
+    // species first shows up, so readers never see a half-filled row.
+    private volatile LongAdder[] speciesCounts = new LongAdder[16 * PET_STATUSES.length];
+    private final LongAdder[] petsByStatus = new LongAdder[PET_STATUSES.length];
+    private final LongAdder[] applicationsByStatus = new LongAdder[AdoptionApplication.ApplicationStatus.values().length];
+    private final LongAdder adoptionSeconds = new LongAdder();   // filing to approval, where the approval time is known
+    private final LongAdder timedAdoptions = new LongAdder();
+
+    public AdoptionStats() {
+        for (int i = 0; i < petsByStatus.length; i++) {
+            petsByStatus[i] = new LongAdder();
+        }
+        for (int i = 0; i < applicationsByStatus.length; i++) {
+            applicationsByStatus[i] = new LongAdder();
+        }
+    }
+
+    // One pass over existing data at startup; events keep the counters current afterwards
+    public void rebuild(PetRepository catalog, ApplicationStore applications) {
+        for (Pet pet : catalog.getAllPets()) {
+            petAdded(pet);
+        }
+        for (AdoptionApplication app : applications.getAll()) {
+            applicationAdded(app);
+        }
+    }
+
+    // The counters, with a row for this species
+    private LongAdder[] speciesRow(int code) {
+        LongAdder[] counts = speciesCounts;
+        int row = code * PET_STATUSES.length;
+        return row < counts.length && counts[row] != null ? counts : addSpecies(code);
+    }
+
+    private synchronized LongAdder[] addSpecies(int code) {
+        int row = code * PET_STATUSES.length;
+        LongAdder[] counts = speciesCounts;
+        if (row < counts.length && counts[row] != null) {
+            return counts;
+        }
+        counts = Arrays.copyOf(counts, Math.max(counts.length, 2 * (row + PET_STATUSES.length)));
+        for (int i = 0; i < PET_STATUSES.length; i++) {
+            counts[row + i] = new LongAdder();
+        }
+        speciesCounts = counts;
+        return counts;
+    }
+
+    @Override
+    public void petAdded(Pet pet) {
+        int status = pet.getStatus().ordinal();
+        petsByStatus[status].increment();
+        int code = pet.getSpeciesCode();
+        speciesRow(code)[code * PET_STATUSES.length + status].increment();
+    }
+
+    @Override
+    public void statusChanged(Pet pet, Pet.AdoptionStatus oldStatus) {
+        int code = pet.getSpeciesCode();
+        int row = code * PET_STATUSES.length;
+        LongAdder[] counts = speciesRow(code);
+        petsByStatus[oldStatus.ordinal()].decrement();
+        counts[row + oldStatus.ordinal()].decrement();
+        petsByStatus[pet.getStatus().ordinal()].increment();
+        counts[row + pet.getStatus().ordinal()].increment();
+    }
+
+    @Override
+    public void applicationAdded(AdoptionApplication app) {
+        applicationsByStatus[app.getStatus().ordinal()].increment();
+        timeAdoption(app);
+    }
+
+    @Override
+    public void applicationStatusChanged(AdoptionApplication app, AdoptionApplication.ApplicationStatus oldStatus) {
+        applicationsByStatus[oldStatus.ordinal()].decrement();
+        applicationsByStatus[app.getStatus().ordinal()].increment();
+        timeAdoption(app);
+    }
+
+    private void timeAdoption(AdoptionApplication app) {
+        if (app.getStatus() == AdoptionApplication.ApplicationStatus.APPROVED && app.getDecidedAt() != null) {
+            adoptionSeconds.add(Duration.between(app.getFiledAt(), app.getDecidedAt()).getSeconds());
+            timedAdoptions.increment();
+        }
+    }
+
+    public long pets(Pet.AdoptionStatus status) { return petsByStatus[status.ordinal()].sum(); }
+    public long applications(AdoptionApplication.ApplicationStatus status) { return applicationsByStatus[status.ordinal()].sum(); }
+
+    // Approved share of decided applications, 0..1
+    public double approvalRate() {
+        long approved = applications(AdoptionApplication.ApplicationStatus.APPROVED);
+        long decided = approved + applications(AdoptionApplication.ApplicationStatus.REJECTED);
+        return decided == 0 ? 0 : (double) approved / decided;
+    }
+
+    // Average days from filing to approval, or -1 when nothing was approved yet
+    public double averageDaysToAdoption() {
+        long count = timedAdoptions.sum();
+        return count == 0 ? -1 : adoptionSeconds.sum() / 86400.0 / count;
+    }
+
+    public void print(PrintStream out) {
+        out.println("\nPets: " + pets(Pet.AdoptionStatus.AVAILABLE) + " available, "
+            + pets(Pet.AdoptionStatus.PENDING) + " pending, " + pets(Pet.AdoptionStatus.ADOPTED) + " adopted");
+        out.println(String.format("%-16s %10s %10s %10s", "Species", "available", "pending", "adopted"));
+        LongAdder[] counts = speciesCounts;
+        for (int code : sortedSpecies(counts)) {
+            int row = code * PET_STATUSES.length;
+            out.println(String.format("%-16s %10d %10d %10d", Vocabulary.SPECIES.name(code), counts[row].sum(),
+                counts[row + 1].sum(), counts[row + 2].sum()));
+        }
+        out.println("\nApplications: " + applications(AdoptionApplication.ApplicationStatus.PENDING) + " pending, "
+            + applications(AdoptionApplication.ApplicationStatus.APPROVED) + " approved, "
+            + applications(AdoptionApplication.ApplicationStatus.REJECTED) + " rejected, "
+            + applications(AdoptionApplication.ApplicationStatus.EXPIRED) + " expired");
+        out.println(String.format("Approval rate: %.1f%%", approvalRate() * 100));
+        double days = averageDaysToAdoption();
+        out.println("Average time to adoption: " + (days < 0 ? "n/a" : String.format("%.1f days", days)));
+    }
+
+    // Per-species pet gauges and application totals for the Prometheus export
+    public void appendPrometheus(StringBuilder sb) {
+        sb.append("# HELP pawfect_species_pets Pets per species and status\n");
+        sb.append("# TYPE pawfect_species_pets gauge\n");
+        LongAdder[] counts = speciesCounts;
+        for (int code : sortedSpecies(counts)) {
+            String name = Vocabulary.SPECIES.name(code).replace("\\", "\\\\").replace("\"", "\\\"");
+            for (Pet.AdoptionStatus status : PET_STATUSES) {
+                sb.append("pawfect_species_pets{species=\"").append(name)
+                    .append("\",status=\"").append(status.name().toLowerCase(Locale.ROOT)).append("\"} ")
+                    .append(counts[code * PET_STATUSES.length + status.ordinal()].sum()).append('\n');
+            }
+        }
+        sb.append("# HELP pawfect_applications Applications by status\n");
+        sb.append("# TYPE pawfect_applications gauge\n");
+        for (AdoptionApplication.ApplicationStatus status : AdoptionApplication.ApplicationStatus.values()) {
+            sb.append("pawfect_applications{status=\"").append(status.name().toLowerCase(Locale.ROOT)).append("\"} ")
+                .append(applications(status)).append('\n');
+        }
+        sb.append("# HELP pawfect_approval_ratio Approved share of decided applications\n");
+        sb.append("# TYPE pawfect_approval_ratio gauge\n");
+        sb.append("pawfect_approval_ratio ").append(approvalRate()).append('\n');
+    }
+
+    // Codes of the species seen so far, by name
+    private static List<Integer> sortedSpecies(LongAdder[] counts) {
+        List<Integer> sorted = new ArrayList<>();
+        for (int row = 0; row < counts.length; row += PET_STATUSES.length) {
+            if (counts[row] != null) {
+                sorted.add(row / PET_STATUSES.length);
+            }
+        }
+        sorted.sort(Comparator.comparing(code -> Vocabulary.SPECIES.key(code)));
+        return sorted;
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Multi-threaded adoption stress test: java PawfectMatch --stress-adoption [threads...]
+class AdoptionStress {
+    private static final int PETS = 20_000;
+    private static final int USERS = 2_000;
+    private static final int APPLICATIONS_PER_PET = 4;
+
+    public static void run(String[] args) throws InterruptedException {
+        int[] threadCounts = args.length > 0 ? new int[args.length] : new int[] {1, 2, 4, 8};
+        for (int i = 0; i < args.length; i++) {
+            threadCounts[i] = Integer.parseInt(args[i]);
+        }
+        System.out.println("threads   filed/sec     refused/sec   approvals/sec   invariants");
+        for (int threads : threadCounts) {
+            runOnce(threads);
+        }
+    }
+
+    private static void runOnce(int threads) throws InterruptedException {
+        AdoptionEngine engine = new AdoptionEngine();
+        PetCatalog catalog = new PetCatalog();
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < PETS; i++) {
+            Pet pet = new Pet("Pet" + i, "S" + i, i % 2 == 0 ? "Dog" : "Cat", i % 15, "Mixed");
+            catalog.addPet(pet);
+            pets.add(pet);
+        }
+        List<RegularUser> users = new ArrayList<>();
+        PasswordHasher.Credential credential = PasswordHasher.create("pw", 1);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new RegularUser("user" + i, credential, "user" + i + "@mail.com"));
+        }
+
+        // every thread applies for every pet; the first reservation wins and the rest are turned away
+        AtomicInteger filed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        long start = System.nanoTime();
+        runThreads(threads, t -> {
+            Random random = new Random(t);
+            int won = 0;
+            int lost = 0;
+            for (int round = t; round < APPLICATIONS_PER_PET * threads; round += threads) {
+                for (Pet pet : pets) {
+                    if (engine.apply(users.get(random.nextInt(USERS)), pet) != null) {
+                        won++;
+                    } else {
+                        lost++;
+                    }
+                }
+            }
+            filed.addAndGet(won);
+            refused.addAndGet(lost);
+        });
+        long applyNanos = System.nanoTime() - start;
+        List<AdoptionApplication> all = engine.getApplications();
+        Collections.shuffle(all, new Random(7));
+
+        // every thread races to approve (or sometimes reject) every application
+        AtomicInteger approvals = new AtomicInteger();
+        start = System.nanoTime();
+        runThreads(threads, t -> {
+            Random random = new Random(100 + t);
+            for (int i = t; i < all.size(); i += threads) {
+                AdoptionApplication app = all.get(i);
+                if (random.nextInt(10) == 0) {
+                    engine.reject(app);
+                } else if (engine.approve(app).approved) {
+                    approvals.incrementAndGet();
+                }
+            }
+        });
+        long approveNanos = System.nanoTime() - start;
+
+        String violation = verify(engine, pets);
+        System.out.println(String.format("%-9d %-13.0f %-13.0f %-15.0f %s", threads, filed.get() / (applyNanos / 1e9),
+            refused.get() / (applyNanos / 1e9), approvals.get() / (approveNanos / 1e9), violation == null ? "OK" : violation));
+    }
+
+    interface Worker {
+        void run(int thread);
+    }
+
+    static void runThreads(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                    worker.run(id);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            started.add(thread);
+        }
+        go.countDown();
+        for (Thread thread : started) {
+            thread.join();
+        }
+    }
+
+    // Returns a description of the first broken invariant, or null
+    static String verify(AdoptionEngine engine, Iterable<Pet> pets) {
+        for (Pet pet : pets) {
+            int approved = 0;
+            int pending = 0;
+            for (AdoptionApplication app : engine.getApplicationsFor(pet)) {
+                if (app.getStatus() == AdoptionApplication.ApplicationStatus.APPROVED) {
+                    approved++;
+                } else if (app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING) {
+                    pending++;
+                }
+            }
+            if (approved > 1) {
+                return pet.getUniqueId() + " approved " + approved + " times";
+            }
+            if ((approved == 1) != (pet.getStatus() == Pet.AdoptionStatus.ADOPTED)) {
+                return pet.getUniqueId() + " status " + pet.getStatus() + " with " + approved + " approvals";
+            }
+            if (approved == 1 && pending > 0) {
+                return pet.getUniqueId() + " adopted with " + pending + " pending applications";
+            }
+            if ((pending > 0) != (pet.getStatus() == Pet.AdoptionStatus.PENDING)) {
+                return pet.getUniqueId() + " status " + pet.getStatus() + " with " + pending + " pending applications";
+            }
+        }
+        return null;
+    }
+}
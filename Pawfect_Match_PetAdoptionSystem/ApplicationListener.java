@@ -0,0 +1,10 @@
+import java.util.*;
+
+// Notified after an application is filed or decided
+interface ApplicationListener {
+    void applicationAdded(AdoptionApplication app);
+    void applicationStatusChanged(AdoptionApplication app, AdoptionApplication.ApplicationStatus oldStatus);
+
+    // Decided applications moved to the archive and dropped from memory
+    default void applicationsArchived(Collection<AdoptionApplication> apps) {}
+}
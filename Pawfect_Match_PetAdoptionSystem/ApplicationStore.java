@@ -0,0 +1,216 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.time.Instant;
+
+// All adoption applications, with a live pending set and case-insensitive
+// pending indexes by pet name and applicant so reviews skip decided history.
+// Decided applications are kept in decision order, so archiving reads only the old ones.
+// Every application also lives in its applicant's list, which user dashboards read.
+class ApplicationStore {
+    private static final Comparator<AdoptionApplication> BY_ID = Comparator.comparingLong(AdoptionApplication::getId);
+    private static final Comparator<AdoptionApplication> BY_DECISION =
+        Comparator.comparing(ApplicationStore::decidedAt).thenComparing(BY_ID);
+
+    private final List<AdoptionApplication> all = Collections.synchronizedList(new ArrayList<>());
+    private final ConcurrentSkipListSet<AdoptionApplication> pending = new ConcurrentSkipListSet<>(BY_ID);
+    private final ConcurrentHashMap<String, Set<AdoptionApplication>> pendingByPetName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<AdoptionApplication>> pendingByApplicant = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<User, List<AdoptionApplication>> byApplicant = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<AdoptionApplication> decided = new ConcurrentSkipListSet<>(BY_DECISION);   // owner only
+    private final List<ApplicationListener> listeners = new CopyOnWriteArrayList<>();
+    private final boolean owner;
+
+    public ApplicationStore() {
+        this(true);
+    }
+
+    private ApplicationStore(boolean owner) {
+        this.owner = owner;
+    }
+
+    // A partition of another store (e.g. one shelter's applications): it is fed that store's
+    // events and leaves the applications' and applicants' back-references alone
+    static ApplicationStore view() {
+        return new ApplicationStore(false);
+    }
+
+    public void addListener(ApplicationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void add(AdoptionApplication app) {
+        all.add(app);
+        if (owner) {
+            app.store = this;
+            insertById(byApplicant.computeIfAbsent(app.getApplicant(), k -> Collections.synchronizedList(new ArrayList<>())), app);
+            if (app.getApplicant() instanceof RegularUser) {
+                ((RegularUser) app.getApplicant()).applications = this;
+            }
+        }
+        if (app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING) {
+            index(app);
+        } else if (owner) {
+            decided.add(app);
+        }
+        for (ApplicationListener listener : listeners) {
+            listener.applicationAdded(app);
+        }
+    }
+
+    // Ids are taken before the pet's lock, so two sessions of one user can file out of id order;
+    // keeping each history sorted lets historyPage seek by id. Nearly always an append.
+    private static void insertById(List<AdoptionApplication> apps, AdoptionApplication app) {
+        synchronized (apps) {
+            int at = apps.size();
+            while (at > 0 && apps.get(at - 1).getId() > app.getId()) {
+                at--;
+            }
+            apps.add(at, app);
+        }
+    }
+
+    // Called by AdoptionApplication.setStatus
+    void statusChanged(AdoptionApplication app, AdoptionApplication.ApplicationStatus oldStatus) {
+        boolean nowPending = app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING;
+        if (oldStatus == AdoptionApplication.ApplicationStatus.PENDING && !nowPending) {
+            pending.remove(app);
+            unindex(pendingByPetName, PetCatalog.normalize(app.getPet().getName()), app);
+            unindex(pendingByApplicant, PetCatalog.normalize(app.getApplicant().getUsername()), app);
+            if (owner) {
+                decided.add(app);
+            }
+        } else if (nowPending) {
+            index(app);
+        }
+        for (ApplicationListener listener : listeners) {
+            listener.applicationStatusChanged(app, oldStatus);
+        }
+    }
+
+    private void index(AdoptionApplication app) {
+        pending.add(app);
+        pendingByPetName.computeIfAbsent(PetCatalog.normalize(app.getPet().getName()), k -> new ConcurrentSkipListSet<>(BY_ID)).add(app);
+        pendingByApplicant.computeIfAbsent(PetCatalog.normalize(app.getApplicant().getUsername()), k -> new ConcurrentSkipListSet<>(BY_ID)).add(app);
+    }
+
+    private static void unindex(Map<String, Set<AdoptionApplication>> index, String key, AdoptionApplication app) {
+        Set<AdoptionApplication> apps = index.get(key);
+        if (apps != null) {
+            apps.remove(app);
+        }
+    }
+
+    // Drops decided applications (pending ones stay); used after they were archived
+    public void removeAll(Collection<AdoptionApplication> apps) {
+        Set<AdoptionApplication> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (AdoptionApplication app : apps) {
+            if (app.getStatus() != AdoptionApplication.ApplicationStatus.PENDING) {
+                gone.add(app);
+            }
+        }
+        all.removeIf(gone::contains);
+        if (owner) {
+            decided.removeAll(gone);
+            for (AdoptionApplication app : gone) {
+                List<AdoptionApplication> history = byApplicant.get(app.getApplicant());
+                if (history != null) {
+                    history.remove(app);
+                }
+            }
+        }
+        for (ApplicationListener listener : listeners) {
+            listener.applicationsArchived(gone);
+        }
+    }
+
+    // Applications decided before the cutoff, oldest decision first
+    public List<AdoptionApplication> decidedBefore(Instant cutoff) {
+        List<AdoptionApplication> old = new ArrayList<>();
+        for (AdoptionApplication app : decided) {
+            if (!decidedAt(app).isBefore(cutoff)) {
+                break;
+            }
+            old.add(app);
+        }
+        return old;
+    }
+
+    // Decisions restored without a time count from filing
+    private static Instant decidedAt(AdoptionApplication app) {
+        return app.getDecidedAt() != null ? app.getDecidedAt() : app.getFiledAt();
+    }
+
+    public List<AdoptionApplication> getAll() { return new ArrayList<>(all); }
+    public int size() { return all.size(); }
+    public boolean hasPending() { return !pending.isEmpty(); }
+
+    public List<AdoptionApplication> findByApplicant(User applicant) {
+        List<AdoptionApplication> apps = byApplicant.get(applicant);
+        if (apps == null) {
+            return new ArrayList<>();
+        }
+        synchronized (apps) {
+            return new ArrayList<>(apps);
+        }
+    }
+    public int pendingCount() { return pending.size(); }
+
+    // Pending applications in filing order (weakly consistent live view)
+    public Collection<AdoptionApplication> getPending() {
+        return Collections.unmodifiableSet(pending);
+    }
+
+    // Pending applications in filing order (ids are handed out as applications are filed), starting
+    // after the cursor (null = first page); the skip list seeks straight to it
+    public Page<AdoptionApplication> pendingPage(String cursor, int limit) {
+        NavigableSet<AdoptionApplication> from = cursor == null ? pending : pending.tailSet(after(cursor), false);
+        List<AdoptionApplication> fetched = new ArrayList<>(limit + 1);
+        for (AdoptionApplication app : from) {
+            if (fetched.size() > limit) {
+                break;
+            }
+            fetched.add(app);
+        }
+        return Page.of(fetched, limit, ApplicationStore::cursor);
+    }
+
+    // One applicant's applications in filing order (add keeps them sorted by id), same cursors as pendingPage
+    public Page<AdoptionApplication> historyPage(User applicant, String cursor, int limit) {
+        List<AdoptionApplication> apps = byApplicant.get(applicant);
+        if (apps == null) {
+            return new Page<>(new ArrayList<>(), null);
+        }
+        synchronized (apps) {
+            int from = 0;
+            if (cursor != null) {
+                int found = Collections.binarySearch(apps, after(cursor), BY_ID);
+                from = found >= 0 ? found + 1 : -found - 1;
+            }
+            return Page.of(new ArrayList<>(apps.subList(from, Math.min(apps.size(), from + limit + 1))), limit,
+                ApplicationStore::cursor);
+        }
+    }
+
+    private static String cursor(AdoptionApplication app) {
+        return Page.encode("FILED", Long.toString(app.getId()));
+    }
+
+    private static AdoptionApplication after(String cursor) {
+        try {
+            return new AdoptionApplication(Long.parseLong(Page.decode(cursor, "FILED", 2)[1]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // Pending applications whose pet name or applicant username equals the term, ignoring case
+    public List<AdoptionApplication> findPending(String petNameOrUsername) {
+        String key = PetCatalog.normalize(petNameOrUsername);
+        TreeSet<AdoptionApplication> matches = new TreeSet<>(BY_ID);
+        matches.addAll(pendingByPetName.getOrDefault(key, Collections.emptySet()));
+        matches.addAll(pendingByApplicant.getOrDefault(key, Collections.emptySet()));
+        return new ArrayList<>(matches);
+    }
+}
@@ -0,0 +1,3 @@
+interface Authenticatable {
+    boolean authenticate(String username, String password);
+}
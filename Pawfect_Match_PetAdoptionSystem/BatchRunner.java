@@ -0,0 +1,291 @@
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+
+// Non-interactive mode for scripted runs, traffic replay and load tests:
+//   java PawfectMatch --batch commands.txt [--out results.txt]
+// One command per line; arguments are separated by spaces, "double quotes" keep spaces, # starts a comment.
+//   register <user> <password> <email>   login <user> <password>   admin <user> <password>   logout
+//   pets   search <species|*> <maxAge>   find <keywords>   recommend [species|*] [age]
+//   apply <pet name>   history   approve <pet name|applicant>   reject <pet name|applicant>
+//   addpet <name> <species> <age> <breed>
+// Each command prints "<line> ok ..." or "<line> !! ... !!"; listings add up to 10 pets.
+// Commands run in order without waiting for the event log. A writer thread prints each result once the
+// command's events are durable, so output trails execution instead of stalling it.
+class BatchRunner {
+    private static final int LISTED = 10;
+
+    // A result and the event log write it has to wait for
+    private static class Line {
+        final int number;
+        final String text;
+        final CompletableFuture<Void> written;
+
+        Line(int number, String text, CompletableFuture<Void> written) {
+            this.number = number;
+            this.text = text;
+            this.written = written;
+        }
+    }
+
+    private static final Line END = new Line(0, null, null);
+
+    private final AdoptionService service;
+    private RegularUser user;
+    private AdminUser admin;
+
+    // One logged-in session; LoadGenerator runs one per simulated client
+    BatchRunner(AdoptionService service) {
+        this.service = service;
+    }
+
+    static void run(AdoptionService service, PersistentStore store, Path commands, Path results) throws IOException {
+        PrintStream out = new PrintStream(new BufferedOutputStream(
+            results == null ? new FileOutputStream(FileDescriptor.out) : Files.newOutputStream(results), 1 << 16),
+            false, "UTF-8");
+        BlockingQueue<Line> lines = new LinkedBlockingQueue<>(4096);
+        AtomicInteger failed = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            try {
+                for (Line line = lines.take(); line != END; line = lines.take()) {
+                    try {
+                        line.written.join();
+                        out.println(line.number + " " + line.text);
+                    } catch (java.util.concurrent.CompletionException e) {
+                        out.println(line.number + " !! Could not save: " + e.getCause().getMessage() + " !!");
+                        failed.incrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.flush();
+        }, "pawfect-batch-output");
+        writer.start();
+
+        BatchRunner runner = new BatchRunner(service);
+        int executed = 0;
+        long start = System.nanoTime();
+        store.setPipelined(true);
+        try (BufferedReader in = Files.newBufferedReader(commands, StandardCharsets.UTF_8)) {
+            int number = 0;
+            for (String command = in.readLine(); command != null; command = in.readLine()) {
+                number++;
+                List<String> args = tokenize(command);
+                if (args.isEmpty()) {
+                    continue;
+                }
+                String text;
+                try {
+                    text = runner.execute(args);
+                } catch (NumberFormatException e) {
+                    text = "!! Invalid input. Please enter a number !!";
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    text = "!! " + e.getMessage() + " !!";
+                }
+                if (text.startsWith("!!")) {
+                    failed.incrementAndGet();
+                }
+                executed++;
+                lines.put(new Line(number, text, store.lastWrite()));
+            }
+            lines.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            store.setPipelined(false);
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(String.format("%d commands in %d ms (%.0f/s), %d failed",
+            executed, millis, executed * 1000.0 / millis, failed.get()));
+    }
+
+    static List<String> tokenize(String line) {
+        List<String> args = new ArrayList<>();
+        StringBuilder arg = new StringBuilder();
+        boolean quoted = false;
+        boolean inArg = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inArg = true;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    inArg = false;
+                }
+            } else if (!quoted && !inArg && c == '#') {
+                break;
+            } else {
+                arg.append(c);
+                inArg = true;
+            }
+        }
+        if (inArg) {
+            args.add(arg.toString());
+        }
+        return args;
+    }
+
+    String execute(List<String> args) {
+        switch (args.get(0).toLowerCase(Locale.ROOT)) {
+            case "register":
+                need(args, 3);
+                return service.register(args.get(1), args.get(2), args.get(3)) == null
+                    ? "!! Username already taken. Please choose another !!" : "ok registered " + args.get(1);
+            case "login":
+                need(args, 2);
+                admin = null;
+                user = service.login(args.get(1), args.get(2));
+                return user == null ? "!! Login failed. Invalid credentials !!" : "ok logged in as " + args.get(1);
+            case "admin":
+                need(args, 2);
+                user = null;
+                admin = service.loginAdmin(args.get(1), args.get(2));
+                return admin == null ? "!! Login failed. Invalid credentials !!" : "ok logged in as admin " + args.get(1);
+            case "logout":
+                user = null;
+                admin = null;
+                return "ok logged out";
+            case "pets":
+                return list(service.availablePets());
+            case "search":
+                need(args, 2);
+                return list(service.search(any(args.get(1)), Integer.parseInt(args.get(2))));
+            case "find":
+                need(args, 1);
+                return list(service.keywordSearch(rest(args), LISTED));
+            case "recommend":
+                requireUser();
+                return list(service.recommend(user, args.size() > 1 ? any(args.get(1)) : "",
+                    args.size() > 2 ? Integer.parseInt(args.get(2)) : -1, LISTED));
+            case "apply": {
+                requireUser();
+                need(args, 1);
+                Pet pet = service.findAvailable(rest(args));
+                AdoptionApplication application = pet == null ? null : service.apply(user, pet);
+                return application == null ? "!! Pet not found or not available for adoption !!"
+                    : "ok applied for " + pet.getName() + " (application " + application.getId() + ")";
+            }
+            case "history": {
+                requireUser();
+                List<AdoptionApplication> history = user.getApplications();
+                StringBuilder text = new StringBuilder("ok ").append(history.size()).append(" applications");
+                for (AdoptionApplication app : history) {
+                    text.append("\n    ").append(app.getPet().getName()).append(" - ").append(app.getStatus());
+                }
+                return text.toString();
+            }
+            case "browse": {
+                // browse <id|age> [cursor]: a page of available pets and the cursor to pass for the next one
+                need(args, 1);
+                PetOrder order = order(args.get(1));
+                Page<Pet> page = service.petPage(Pet.AdoptionStatus.AVAILABLE, order, args.size() > 2 ? args.get(2) : null, LISTED);
+                StringBuilder text = new StringBuilder("ok ").append(page.items.size()).append(" pets, next ")
+                    .append(page.next == null ? "none" : page.next);
+                for (Pet pet : page.items) {
+                    ConsoleRenderer.appendPet(text.append("\n    "), pet);
+                }
+                return text.toString();
+            }
+            case "pending": {
+                requireAdmin();
+                Page<AdoptionApplication> page = service.pendingPage(admin, args.size() > 1 ? args.get(1) : null, LISTED);
+                StringBuilder text = new StringBuilder("ok ").append(page.items.size()).append(" applications, next ")
+                    .append(page.next == null ? "none" : page.next);
+                for (AdoptionApplication app : page.items) {
+                    text.append("\n    ").append(app.getApplicant().getUsername()).append(" - ").append(app.getPet().getName());
+                }
+                return text.toString();
+            }
+            case "approve":
+            case "reject":
+                return decide(args);
+            case "addpet": {
+                requireAdmin();
+                need(args, 4);
+                int age = Integer.parseInt(args.get(3));
+                if (age < 0) {
+                    return "!! Age must be a non-negative number !!";
+                }
+                Pet pet = service.addPet(admin, args.get(1), args.get(2), age, args.get(4));
+                return "ok added " + pet.getName() + " as " + pet.getUniqueId();
+            }
+            default:
+                return "!! Unknown command " + args.get(0) + " !!";
+        }
+    }
+
+    // approve/reject <pet name|applicant>: the search has to match exactly one pending application
+    private String decide(List<String> args) {
+        requireAdmin();
+        need(args, 1);
+        List<AdoptionApplication> matches = service.applications(admin).findPending(rest(args));
+        if (matches.isEmpty()) {
+            return "!! No pending applications found matching your search !!";
+        }
+        if (matches.size() > 1) {
+            return "!! " + matches.size() + " pending applications match; name the applicant instead !!";
+        }
+        AdoptionApplication application = matches.get(0);
+        String who = application.getApplicant().getUsername() + " - Pet: " + application.getPet().getName();
+        if (args.get(0).equalsIgnoreCase("approve")) {
+            AdoptionEngine.Decision decision = service.approve(application);
+            return !decision.approved ? "!! Application was already decided or the pet is adopted !!"
+                : "ok APPROVED " + who + (decision.autoRejected.isEmpty() ? "" : ", " + decision.autoRejected.size() + " other(s) rejected");
+        }
+        return service.reject(application) ? "ok REJECTED " + who : "!! Application was already decided !!";
+    }
+
+    private static PetOrder order(String name) {
+        for (PetOrder order : PetOrder.values()) {
+            if (order.name().equalsIgnoreCase(name)) {
+                return order;
+            }
+        }
+        throw new IllegalArgumentException("Order must be id or age");
+    }
+
+    private String list(List<Pet> pets) {
+        StringBuilder text = new StringBuilder("ok ").append(pets.size()).append(" pets");
+        for (int i = 0; i < Math.min(LISTED, pets.size()); i++) {
+            ConsoleRenderer.appendPet(text.append("\n    "), pets.get(i));
+        }
+        return text.toString();
+    }
+
+    private void requireUser() {
+        if (user == null) {
+            throw new IllegalStateException("Log in as a user first");
+        }
+    }
+
+    private void requireAdmin() {
+        if (admin == null) {
+            throw new IllegalStateException("Log in as an admin first");
+        }
+    }
+
+    private static void need(List<String> args, int count) {
+        if (args.size() <= count) {
+            throw new IllegalArgumentException(args.get(0) + " needs " + count + " argument(s)");
+        }
+    }
+
+    private static String any(String value) {
+        return value.equals("*") ? "" : value;
+    }
+
+    private static String rest(List<String> args) {
+        return String.join(" ", args.subList(1, args.size()));
+    }
+}
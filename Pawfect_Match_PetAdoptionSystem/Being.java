@@ -0,0 +1,13 @@
+abstract class Being {      //inheritance / abstraction
+    private String name;
+    private String uniqueId;
+
+    public Being(String name, String uniqueId) {
+        this.name = name;
+        this.uniqueId = uniqueId;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getUniqueId() { return uniqueId; }
+}
@@ -0,0 +1,5 @@
+// Notified after a pet is added or its status changes (called with the repository locked, keep it quick)
+interface CatalogListener {
+    void petAdded(Pet pet);
+    void statusChanged(Pet pet, Pet.AdoptionStatus oldStatus);
+}
@@ -0,0 +1,63 @@
+import java.time.LocalDate;
+
+// Console rendering: banners are rendered once, rows are built in reusable
+// StringBuilders and fields are padded without String.format
+class ConsoleRenderer {
+    private static final String TOP = "╔══════════════════════════════════╗";
+    private static final String BOTTOM = "╚══════════════════════════════════╝";
+
+    static final String USER_DASHBOARD = banner(true, "          User Dashboard          ");
+    static final String PENDING_APPLICATIONS = banner(true, "   Pending Adoption Applications  ");
+    static final String ADMIN_DASHBOARD = banner(true, "         Admin Dashboard          ");
+    static final String WELCOME = banner(true, "        - PAWFECT MATCH -         ", "      A Pet Adoption  System      ");
+    static final String REGISTRATION_SUCCESSFUL = banner(false, "     Registration successful!     ");
+    static final String MAIN_MENU = banner(true, "            Main Menu             ");
+    static final String ADMIN_PORTAL = banner(true, "           Admin Portal           ");
+    static final String ADD_NEW_PET = banner(false, "            Add New Pet           ");
+    static final String AVAILABLE_PETS = banner(true, "       === Available Pets ===     ");
+    static final String SEARCH_PETS = banner(true, "        === Search Pets ===       ");
+    static final String SEARCH_RESULTS = banner(true, "       === Search Results ===     ");
+    static final String SHELTERS = banner(true, "             Shelters             ");
+    static final String SYSTEM_STATS = banner(true, "          System Stats            ");
+    static final String RECOMMENDED_PETS = banner(true, "     === Recommended Pets ===     ");
+
+    private static String banner(boolean blankLineBefore, String... rows) {
+        StringBuilder sb = new StringBuilder(blankLineBefore ? "\n" : "").append(TOP).append('\n');
+        for (String row : rows) {
+            sb.append('║').append(row).append("║\n");
+        }
+        return sb.append(BOTTOM).append('\n').toString();
+    }
+
+    // Left-aligned like %-<width>s: pads short values, never truncates
+    static StringBuilder pad(StringBuilder sb, CharSequence value, int width) {
+        sb.append(value);
+        for (int i = value.length(); i < width; i++) {
+            sb.append(' ');
+        }
+        return sb;
+    }
+
+    static StringBuilder appendPet(StringBuilder sb, Pet pet) {
+        return sb.append("Name: ").append(pet.getName())
+            .append(" | Species: ").append(pet.getSpecies())
+            .append(" | Age: ").append(pet.getAge())
+            .append(" | Breed: ").append(pet.getBreed())
+            .append(" | Status: ").append(pet.getStatus());
+    }
+
+    static StringBuilder appendApplicationCard(StringBuilder sb, AdoptionApplication app) {
+        LocalDate date = app.getApplicationDate();
+        sb.append(TOP).append('\n');
+        pad(sb.append("║ Applicant: "), app.getApplicant().getUsername(), 21).append(" ║\n");
+        pad(sb.append("║ Pet:       "), app.getPet().getName(), 21).append(" ║\n");
+        pad(sb.append("║ Species:   "), app.getPet().getSpecies(), 21).append(" ║\n");
+        sb.append("║ Application Date: ").append(date.getYear()).append('-');
+        twoDigits(sb, date.getMonthValue()).append('-');
+        return twoDigits(sb, date.getDayOfMonth()).append("     ║\n").append(BOTTOM);
+    }
+
+    private static StringBuilder twoDigits(StringBuilder sb, int value) {
+        return sb.append(value < 10 ? "0" : "").append(value);
+    }
+}
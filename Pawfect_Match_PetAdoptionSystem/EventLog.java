@@ -0,0 +1,248 @@
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Append-only binary event log. Appends block until fsynced; concurrent appends share one fsync.
+class EventLog implements Closeable {
+    // record: [int length][long seq][byte type][payload][int crc32 of seq..payload]
+    static class Record {
+        final long seq;
+        final byte type;
+        final byte[] payload;
+
+        Record(long seq, byte type, byte[] payload) {
+            this.seq = seq;
+            this.type = type;
+            this.payload = payload;
+        }
+
+        DataInputStream in() { return new DataInputStream(new ByteArrayInputStream(payload)); }
+    }
+
+    private static class Pending {
+        final ByteBuffer bytes;
+        final long seq;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(ByteBuffer bytes, long seq) {
+            this.bytes = bytes;
+            this.seq = seq;
+        }
+    }
+
+    private static final int MAX_BATCH = 512;
+
+    private final Path file;
+    private final Object io = new Object();   // held around writes and compaction, which swaps the channel
+    private FileChannel channel;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private long lastSeq;
+    private long writtenSeq;
+    private long writtenOffset;
+    private IOException failure;    // writer thread only
+    private volatile boolean closed;
+
+    // Replays every valid record, drops a torn tail, and opens the log for appends
+    static EventLog open(Path file, java.util.function.Consumer<Record> replay) throws IOException {
+        long lastSeq = 0;
+        long validEnd = 0;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        CRC32 crc = new CRC32();
+        while (true) {
+            try {
+                int length = in.readInt();
+                if (length < 9 || validEnd + 8 + length > channel.size()) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                in.readFully(body);
+                int checksum = in.readInt();
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                ByteBuffer header = ByteBuffer.wrap(body);
+                long seq = header.getLong();
+                byte type = header.get();
+                replay.accept(new Record(seq, type, Arrays.copyOfRange(body, 9, length)));
+                lastSeq = seq;
+                validEnd += 8 + length;
+            } catch (EOFException e) {
+                break;
+            }
+        }
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        return new EventLog(file, channel, lastSeq, validEnd);
+    }
+
+    private EventLog(Path file, FileChannel channel, long lastSeq, long offset) {
+        this.file = file;
+        this.channel = channel;
+        this.lastSeq = lastSeq;
+        this.writtenSeq = lastSeq;
+        this.writtenOffset = offset;
+        this.writer = new Thread(this::writeLoop, "event-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Seeds the sequence after a snapshot newer than the log tail was loaded
+    synchronized void advanceSequence(long seq) {
+        lastSeq = Math.max(lastSeq, seq);
+        writtenSeq = Math.max(writtenSeq, seq);
+    }
+
+    public void append(byte type, byte[] payload) {
+        appendAll(type, Collections.singletonList(payload));
+    }
+
+    // Queues all records back to back so they share fsyncs, and waits until every one is durable
+    public void appendAll(byte type, List<byte[]> payloads) {
+        await(enqueue(type, payloads));
+    }
+
+    static void await(CompletableFuture<Void> write) {
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing event log", e);
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException("Could not write event log", (IOException) e.getCause());
+        }
+    }
+
+    // Queues the records without waiting; the future completes once the last of them is durable.
+    // Records are written in queue order, so it also covers everything queued before.
+    public CompletableFuture<Void> enqueue(byte type, List<byte[]> payloads) {
+        Pending last = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Event log is closed");
+            }
+            for (byte[] payload : payloads) {
+                long seq = ++lastSeq;
+                int length = 9 + payload.length;
+                ByteBuffer buffer = ByteBuffer.allocate(8 + length);
+                buffer.putInt(length).putLong(seq).put(type).put(payload);
+                CRC32 crc = new CRC32();
+                crc.update(buffer.array(), 4, length);
+                buffer.putInt((int) crc.getValue());
+                buffer.flip();
+                last = new Pending(buffer, seq);
+                queue.add(last);        // queue order == sequence order
+            }
+        }
+        return last == null ? CompletableFuture.completedFuture(null) : last.done;
+    }
+
+    // Last durable sequence number and the log offset right after it
+    synchronized long[] checkpoint() {
+        return new long[] {writtenSeq, writtenOffset};
+    }
+
+    // Drops the records before offset once a snapshot holds them: copies the rest to a new file
+    // and swaps it in, so the log only ever holds what the latest snapshot is missing.
+    // Appends wait meanwhile; if anything fails the old log stays, which is still correct.
+    void compact(long offset) throws IOException {
+        synchronized (io) {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                long end = channel.size();
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    for (long at = offset; at < end; ) {
+                        at += channel.transferTo(at, end - at, out);
+                    }
+                    out.force(false);
+                }
+                channel.close();   // Windows cannot replace a file that is still open
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                if (!channel.isOpen()) {
+                    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                channel.position(channel.size());
+                synchronized (this) {
+                    writtenOffset = channel.size();
+                }
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, java.util.concurrent.TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = batch.get(i).bytes;
+                }
+                try {
+                    if (failure != null) {
+                        throw failure;   // the file position is unknown after a failed write
+                    }
+                    synchronized (io) {
+                        while (buffers[buffers.length - 1].hasRemaining()) {
+                            channel.write(buffers);
+                        }
+                        channel.force(false);   // one fsync for the whole group
+                        synchronized (this) {
+                            writtenSeq = batch.get(batch.size() - 1).seq;
+                            writtenOffset = channel.position();
+                        }
+                    }
+                    for (Pending pending : batch) {
+                        pending.done.complete(null);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                    for (Pending pending : batch) {
+                        pending.done.completeExceptionally(e);
+                    }
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
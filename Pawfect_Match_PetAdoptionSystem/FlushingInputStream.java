@@ -0,0 +1,23 @@
+import java.io.*;
+
+// Flushes the session screen whenever the Scanner is about to block for more input
+class FlushingInputStream extends FilterInputStream {
+    private final PrintStream out;
+
+    FlushingInputStream(InputStream in, PrintStream out) {
+        super(in);
+        this.out = out;
+    }
+
+    @Override
+    public int read() throws IOException {
+        out.flush();
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        out.flush();
+        return super.read(bytes, off, len);
+    }
+}
@@ -0,0 +1,408 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+
+// Synthetic end-to-end load, run without the console:
+//   java PawfectMatch --load [--sessions 16] [--users 1000] [--pets 5000] [--shelters 2] [--ops 50000]
+//       [--seed 1] [--mix search=25,apply=20,...] [--record workload.txt | --replay workload.txt]
+//       [--data <empty dir>] [--report load.properties] [--baseline previous.properties]
+// Builds its own population (saved data is never touched), turns the operation mix into one
+// script per session in the --batch command language, and runs the sessions on concurrent
+// threads through AdoptionService. Reports throughput, latency percentiles per command and
+// the first broken adoption invariant. A recorded workload replays the same scripts on the
+// same population, so one release can be compared with the last on identical traffic.
+class LoadGenerator {
+    private static final String PASSWORD = "pw";
+    private static final String DEFAULT_MIX = "search=25,browse=15,find=10,recommend=5,apply=20,history=5,approve=15,reject=5";
+    private static final String[] COMMANDS = {"login", "admin", "search", "browse", "find", "recommend", "apply", "history", "approve", "reject"};
+    private static final int APPROVAL_TARGETS = 256;   // recent applications the admin sessions pick from
+
+    // The population and the session scripts: everything a run needs, and what --record writes
+    static class Workload {
+        int users = 1000;
+        int pets = 5000;
+        int shelters = 2;
+        long seed = 1;
+        final List<List<String>> sessions = new ArrayList<>();
+    }
+
+    // Latency and outcomes of one command
+    private static class CommandStats {
+        final LatencyHistogram latency;
+        final LongAdder ok = new LongAdder();
+        final LongAdder refused = new LongAdder();   // "!!" answers, e.g. the pet was already taken
+
+        CommandStats(String name) {
+            latency = new LatencyHistogram(name, name);
+        }
+    }
+
+    public static void run(String[] args) throws IOException, InterruptedException {
+        Workload workload = new Workload();
+        int sessions = 16;
+        int ops = 50_000;
+        String mix = DEFAULT_MIX;
+        Path record = null;
+        Path replay = null;
+        Path data = null;
+        Path report = null;
+        Path baseline = null;
+        for (int i = 0; i < args.length - 1; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sessions": sessions = Integer.parseInt(value); break;
+                case "--users": workload.users = Integer.parseInt(value); break;
+                case "--pets": workload.pets = Integer.parseInt(value); break;
+                case "--shelters": workload.shelters = Integer.parseInt(value); break;
+                case "--ops": ops = Integer.parseInt(value.replace("_", "")); break;
+                case "--seed": workload.seed = Long.parseLong(value); break;
+                case "--mix": mix = value; break;
+                case "--record": record = Paths.get(value); break;
+                case "--replay": replay = Paths.get(value); break;
+                case "--data": data = Paths.get(value); break;
+                case "--report": report = Paths.get(value); break;
+                case "--baseline": baseline = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (replay != null) {
+            workload = read(replay);
+        } else {
+            if (sessions < 1 || workload.users < 1 || workload.pets < 1 || workload.shelters < 1) {
+                throw new IllegalArgumentException("Sessions, users, pets and shelters must be at least 1");
+            }
+            generate(workload, sessions, ops, parseMix(mix));
+        }
+        if (record != null) {
+            write(workload, record);
+            System.out.println("Workload recorded to " + record);
+        }
+
+        UserRegistry users = new UserRegistry();
+        ShelterNetwork catalog = new ShelterNetwork(shelter -> new PetCatalog());
+        AdoptionEngine engine = new AdoptionEngine();
+        engine.getStore().addListener(catalog);
+        PersistentStore store = new PersistentStore(data == null ? Paths.get(".") : data, users, catalog, engine);
+        if (data != null) {   // only the run's own events are logged, so start from nothing
+            if (Files.isDirectory(data)) {
+                try (java.util.stream.Stream<Path> files = Files.list(data)) {
+                    if (files.findAny().isPresent()) {
+                        throw new IllegalArgumentException("Load data directory " + data + " must be empty");
+                    }
+                }
+            }
+            store.restore();
+        }
+        populate(workload, users, catalog);
+        AdoptionService service = new AdoptionService(users, catalog, engine, store);
+
+        Map<String, CommandStats> stats = new LinkedHashMap<>();
+        for (String command : COMMANDS) {
+            stats.put(command, new CommandStats(command));
+        }
+        LongAdder errors = new LongAdder();
+        AtomicReference<String> firstError = new AtomicReference<>();
+        List<List<String>> scripts = workload.sessions;
+        long start = System.nanoTime();
+        AdoptionStress.runThreads(scripts.size(), session -> {
+            BatchRunner runner = new BatchRunner(service);
+            for (String line : scripts.get(session)) {
+                List<String> command = BatchRunner.tokenize(line);
+                CommandStats counters = stats.get(command.get(0).toLowerCase(Locale.ROOT));
+                long began = System.nanoTime();
+                String result;
+                try {
+                    result = runner.execute(command);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    result = "!! " + e.getMessage() + " !!";
+                } catch (RuntimeException e) {
+                    errors.increment();
+                    firstError.compareAndSet(null, line + ": " + e);
+                    continue;
+                }
+                if (counters != null) {
+                    counters.latency.since(began);
+                    (result.startsWith("ok") ? counters.ok : counters.refused).increment();
+                }
+            }
+        });
+        long nanos = System.nanoTime() - start;
+        String violation = AdoptionStress.verify(engine, catalog.getAllPets());
+        store.close();
+
+        Properties results = results(scripts.size(), nanos, errors.sum(), violation, stats);
+        print(results, stats, baseline == null ? null : load(baseline));
+        if (firstError.get() != null) {
+            System.out.println("First error: " + firstError.get());
+        }
+        if (report != null) {
+            try (OutputStream out = Files.newOutputStream(report)) {
+                results.store(out, "pawfect load report");
+            }
+            System.out.println("Report written to " + report);
+        }
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            String command = pair[0].trim().toLowerCase(Locale.ROOT);
+            if (pair.length != 2 || !Arrays.asList(COMMANDS).contains(command) || command.equals("admin")) {
+                throw new IllegalArgumentException("Mix entries look like search=25; commands are "
+                    + "login, search, browse, find, recommend, apply, history, approve, reject");
+            }
+            weights.put(command, Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    // Deterministic for a given seed. Sessions log in (or switch to the right shelter admin) as
+    // their next command needs; approvals and rejections pick among recently applied-for pets.
+    static void generate(Workload workload, int sessions, int ops, Map<String, Integer> mix) {
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The mix needs a positive weight");
+        }
+        List<Integer> applied = new ArrayList<>();
+        for (int session = 0; session < sessions; session++) {
+            Random random = new Random(workload.seed * 1_000_003L + session);
+            List<String> script = new ArrayList<>();
+            String login = null;   // "user" or "admin<shelter>" as the script leaves it
+            for (int op = session; op < ops; op += sessions) {
+                String command = pick(mix, total, random);
+                switch (command) {
+                    case "login":
+                        script.add("login loaduser" + random.nextInt(workload.users) + " " + PASSWORD);
+                        login = "user";
+                        break;
+                    case "search":
+                        script.add("search " + species(random) + " " + random.nextInt(16));
+                        break;
+                    case "browse":
+                        script.add("browse " + (random.nextBoolean() ? "id" : "age"));
+                        break;
+                    case "find":
+                        script.add("find " + (random.nextBoolean() ? species(random) : "Pet" + random.nextInt(workload.pets)));
+                        break;
+                    case "recommend":
+                        login = asUser(script, login, workload, random);
+                        script.add("recommend " + species(random) + " " + random.nextInt(16));
+                        break;
+                    case "apply": {
+                        login = asUser(script, login, workload, random);
+                        int pet = random.nextInt(workload.pets);
+                        script.add("apply Pet" + pet);
+                        applied.add(pet);
+                        if (applied.size() > APPROVAL_TARGETS) {
+                            applied.remove(0);
+                        }
+                        break;
+                    }
+                    case "history":
+                        login = asUser(script, login, workload, random);
+                        script.add("history");
+                        break;
+                    default: {   // approve, reject
+                        int pet = applied.isEmpty() ? random.nextInt(workload.pets) : applied.remove(random.nextInt(applied.size()));
+                        String admin = "admin" + pet % workload.shelters;   // pets are spread over shelters by number
+                        if (!admin.equals(login)) {
+                            script.add("admin load" + admin + " " + PASSWORD);
+                            login = admin;
+                        }
+                        script.add(command + " Pet" + pet);
+                    }
+                }
+            }
+            workload.sessions.add(script);
+        }
+    }
+
+    private static String pick(Map<String, Integer> mix, int total, Random random) {
+        int roll = random.nextInt(total);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static String asUser(List<String> script, String login, Workload workload, Random random) {
+        if (!"user".equals(login)) {
+            script.add("login loaduser" + random.nextInt(workload.users) + " " + PASSWORD);
+        }
+        return "user";
+    }
+
+    private static String species(Random random) {
+        int i = random.nextInt(PawfectBench.SPECIES.length + 1);
+        return i == PawfectBench.SPECIES.length ? "*" : "\"" + PawfectBench.SPECIES[i] + "\"";
+    }
+
+    // Shelter s, the first one being the default shelter; pet i lives in shelter i % shelters
+    private static String shelter(int s) {
+        return s == 0 ? ShelterNetwork.DEFAULT : "Load " + s;
+    }
+
+    private static void populate(Workload workload, UserRegistry users, ShelterNetwork catalog) throws IOException {
+        PasswordHasher.Credential credential = PasswordHasher.create(PASSWORD);   // hashed once, checked at full cost
+        AdminUser[] admins = new AdminUser[workload.shelters];
+        List<List<Pet>> pets = new ArrayList<>();
+        for (int s = 0; s < workload.shelters; s++) {
+            admins[s] = new AdminUser("loadadmin" + s, credential, "loadadmin" + s + "@mail.com", shelter(s));
+            users.addAdmin(admins[s]);
+            catalog.open(shelter(s));
+            pets.add(new ArrayList<>());
+        }
+        for (int i = 0; i < workload.users; i++) {
+            users.registerUser(new RegularUser("loaduser" + i, credential, "loaduser" + i + "@mail.com"));
+        }
+        Random random = new Random(workload.seed);
+        for (int i = 0; i < workload.pets; i++) {
+            Pet pet = PawfectBench.randomPet(random, i);
+            pets.get(i % workload.shelters).add(pet);
+            admins[i % workload.shelters].addPet(pet);
+        }
+        for (int s = 0; s < workload.shelters; s++) {
+            catalog.addPets(pets.get(s), shelter(s));
+        }
+    }
+
+    // Recorded form: a population line, then each session's commands after a "session" line
+    static void write(Workload workload, Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# pawfect load workload");
+            out.println("population users=" + workload.users + " pets=" + workload.pets
+                + " shelters=" + workload.shelters + " seed=" + workload.seed);
+            for (int session = 0; session < workload.sessions.size(); session++) {
+                out.println("session " + session);
+                for (String command : workload.sessions.get(session)) {
+                    out.println(command);
+                }
+            }
+        }
+    }
+
+    static Workload read(Path file) throws IOException {
+        Workload workload = new Workload();
+        boolean population = false;
+        List<String> script = null;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("population ")) {
+                for (String field : line.substring("population ".length()).trim().split("\\s+")) {
+                    String[] pair = field.split("=");
+                    switch (pair[0]) {
+                        case "users": workload.users = Integer.parseInt(pair[1]); break;
+                        case "pets": workload.pets = Integer.parseInt(pair[1]); break;
+                        case "shelters": workload.shelters = Integer.parseInt(pair[1]); break;
+                        case "seed": workload.seed = Long.parseLong(pair[1]); break;
+                        default: throw new IOException("Unknown population field " + pair[0] + " in " + file);
+                    }
+                }
+                population = true;
+            } else if (line.startsWith("session ")) {
+                script = new ArrayList<>();
+                workload.sessions.add(script);
+            } else if (script != null) {
+                script.add(line);
+            } else {
+                throw new IOException("Command before the first session line in " + file);
+            }
+        }
+        if (!population || workload.sessions.isEmpty()) {
+            throw new IOException(file + " is not a recorded load workload");
+        }
+        return workload;
+    }
+
+    private static Properties results(int sessions, long nanos, long errors, String violation, Map<String, CommandStats> stats) {
+        long commands = 0;
+        long succeeded = 0;
+        double seconds = nanos / 1e9;
+        Properties results = new Properties();
+        for (Map.Entry<String, CommandStats> entry : stats.entrySet()) {
+            CommandStats counters = entry.getValue();
+            long count = counters.latency.count();
+            if (count == 0) {
+                continue;
+            }
+            commands += count;
+            succeeded += counters.ok.sum();
+            String key = entry.getKey();
+            results.setProperty(key + ".count", Long.toString(count));
+            results.setProperty(key + ".ok_percent", String.format(Locale.ROOT, "%.1f", 100.0 * counters.ok.sum() / count));
+            results.setProperty(key + ".ok_per_second", String.format(Locale.ROOT, "%.0f", counters.ok.sum() / seconds));
+            results.setProperty(key + ".refused_per_second", String.format(Locale.ROOT, "%.0f", counters.refused.sum() / seconds));
+            results.setProperty(key + ".p50_ms", millis(counters.latency.percentile(0.50)));
+            results.setProperty(key + ".p90_ms", millis(counters.latency.percentile(0.90)));
+            results.setProperty(key + ".p99_ms", millis(counters.latency.percentile(0.99)));
+            results.setProperty(key + ".p999_ms", millis(counters.latency.percentile(0.999)));
+            results.setProperty(key + ".max_ms", millis(counters.latency.max()));
+        }
+        results.setProperty("sessions", Integer.toString(sessions));
+        results.setProperty("commands", Long.toString(commands + errors));
+        results.setProperty("seconds", String.format(Locale.ROOT, "%.2f", seconds));
+        results.setProperty("commands_per_second", String.format(Locale.ROOT, "%.0f", (commands + errors) / seconds));
+        // refused commands (a pet someone else got first) are cheap, so they are reported apart
+        results.setProperty("succeeded_per_second", String.format(Locale.ROOT, "%.0f", succeeded / seconds));
+        results.setProperty("errors", Long.toString(errors));
+        results.setProperty("invariants", violation == null ? "OK" : violation);
+        return results;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static void print(Properties results, Map<String, CommandStats> stats, Properties baseline) {
+        System.out.println(String.format("%s sessions, %s commands in %s s (%s/s, %s/s succeeded%s), %s errors, invariants %s",
+            results.getProperty("sessions"), results.getProperty("commands"), results.getProperty("seconds"),
+            results.getProperty("commands_per_second"), results.getProperty("succeeded_per_second"),
+            change(results, baseline, "succeeded_per_second"), results.getProperty("errors"), results.getProperty("invariants")));
+        System.out.println(String.format("%-10s %9s %6s %9s %9s %9s %9s %9s %9s %9s  %s", "command", "count", "ok %",
+            "ok/s", "refused/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", baseline == null ? "" : "p99 vs baseline"));
+        for (String command : stats.keySet()) {
+            if (results.getProperty(command + ".count") == null) {
+                continue;
+            }
+            System.out.println(String.format("%-10s %9s %6s %9s %9s %9s %9s %9s %9s %9s  %s", command,
+                results.getProperty(command + ".count"), results.getProperty(command + ".ok_percent"),
+                results.getProperty(command + ".ok_per_second"), results.getProperty(command + ".refused_per_second"),
+                results.getProperty(command + ".p50_ms"), results.getProperty(command + ".p90_ms"),
+                results.getProperty(command + ".p99_ms"), results.getProperty(command + ".p999_ms"),
+                results.getProperty(command + ".max_ms"), change(results, baseline, command + ".p99_ms").trim()));
+        }
+    }
+
+    // " (+12.5%)" against the baseline's value of the same key, or "" without one
+    private static String change(Properties results, Properties baseline, String key) {
+        String before = baseline == null ? null : baseline.getProperty(key);
+        if (before == null) {
+            return "";
+        }
+        double old = Double.parseDouble(before);
+        double now = Double.parseDouble(results.getProperty(key));
+        return old == 0 ? "" : String.format(Locale.ROOT, " (%+.1f%%)", 100 * (now - old) / old);
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.*;
+
+// Login latency benchmark: java PawfectMatch --bench-login [sizes...]
+class LoginBenchmark {
+    private static final int LOOKUPS = 200_000;
+
+    public static void run(String[] sizes) {
+        int[] populations = sizes.length > 0 ? new int[sizes.length] : new int[] {1_000, 10_000, 100_000, 1_000_000};
+        for (int i = 0; i < sizes.length; i++) {
+            populations[i] = Integer.parseInt(sizes[i].replace("_", ""));
+        }
+        System.out.println("accounts     ns/login (lookup + verify, kdf cost 1)");
+        for (int population : populations) {
+            UserRegistry registry = new UserRegistry();
+            for (int i = 0; i < population; i++) {
+                String name = "user" + i;
+                // cost 1 so populating millions of accounts stays fast; lookup cost is what we measure
+                registry.registerUser(new RegularUser(name, PasswordHasher.create("pw" + i, 1), name + "@mail.com"));
+            }
+            Random random = new Random(42);
+            String[] names = new String[1024];
+            String[] passwords = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                int n = random.nextInt(population);
+                names[i] = "user" + n;
+                passwords[i] = "pw" + n;
+            }
+            int misses = measure(registry, names, passwords, LOOKUPS / 4);  // warm-up
+            long start = System.nanoTime();
+            misses += measure(registry, names, passwords, LOOKUPS);
+            long elapsed = System.nanoTime() - start;
+            if (misses > 0) {
+                throw new IllegalStateException(misses + " logins failed");
+            }
+            System.out.println(String.format("%-12d %.1f", population, (double) elapsed / LOOKUPS));
+        }
+    }
+
+    private static int measure(UserRegistry registry, String[] names, String[] passwords, int count) {
+        int misses = 0;
+        for (int i = 0; i < count; i++) {
+            int k = i & (names.length - 1);
+            if (registry.loginUser(names[k], passwords[k]) == null) {
+                misses++;
+            }
+        }
+        return misses;
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+// Background upkeep on a single scheduled thread (its delay queue orders the runs):
+// expires applications left pending too long, moves old decided ones to an archive file
+// and compacts them out of memory and the snapshot, and rebuilds derived indexes.
+// Runs alongside the sessions, which only ever wait on the usual per-pet locks.
+class MaintenanceScheduler implements Closeable {
+    private final AdoptionEngine engine;
+    private final PersistentStore store;
+    private final UserRegistry users;
+    private final Path archive;         // null: nothing is archived (in-memory mode)
+    private final Duration ttl;
+    private final Duration archiveAfter;
+    private final ScheduledExecutorService executor;
+
+    MaintenanceScheduler(AdoptionEngine engine, PersistentStore store, UserRegistry users, Path archive) {
+        this.engine = engine;
+        this.store = store;
+        this.users = users;
+        this.archive = archive;
+        this.ttl = duration("pawfect.application.ttl", "P30D");
+        this.archiveAfter = duration("pawfect.archive.after", "P90D");
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "pawfect-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = executor;
+    }
+
+    // ISO-8601 durations such as P30D or PT10M
+    static Duration duration(String property, String fallback) {
+        String value = System.getProperty(property, fallback);
+        try {
+            return Duration.parse(value);
+        } catch (java.time.format.DateTimeParseException e) {
+            System.err.println("Ignoring " + property + "=" + value + ", expected an ISO-8601 duration like " + fallback);
+            return Duration.parse(fallback);
+        }
+    }
+
+    public void start(Runnable reindex) {
+        long every = duration("pawfect.maintenance.every", "PT1M").toMillis();
+        long reindexEvery = duration("pawfect.reindex.every", "PT6H").toMillis();
+        executor.scheduleWithFixedDelay(this::runOnce, every, every, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(guard(reindex), reindexEvery, reindexEvery, TimeUnit.MILLISECONDS);
+    }
+
+    private void runOnce() {
+        guard(() -> expireStale(Instant.now())).run();
+        guard(() -> {
+            try {
+                archiveDecided(Instant.now());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).run();
+    }
+
+    // A failing run is reported and the next one still happens
+    private static Runnable guard(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("!! Maintenance failed: " + e + " !!");
+            }
+        };
+    }
+
+    // Pending applications are ordered by id, which follows filing time, so this stops at the first fresh one
+    public int expireStale(Instant now) {
+        Instant cutoff = now.minus(ttl);
+        int expired = 0;
+        for (AdoptionApplication app : engine.getStore().getPending()) {
+            if (!app.getFiledAt().isBefore(cutoff)) {
+                break;
+            }
+            if (engine.expire(app)) {
+                store.applicationDecided(app);
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    // Appends old decided applications to the archive, drops them from memory and writes a
+    // snapshot so they are compacted out of the saved state too
+    public int archiveDecided(Instant now) throws IOException {
+        if (archive == null) {
+            return 0;
+        }
+        List<AdoptionApplication> old = engine.getStore().decidedBefore(now.minus(archiveAfter));
+        if (old.isEmpty()) {
+            return 0;
+        }
+        boolean exists = Files.exists(archive);
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            if (!exists) {
+                out.write("id,applicant,pet_id,pet_name,filed_at,decided_at,status\n");
+            }
+            for (AdoptionApplication app : old) {
+                out.write(app.getId() + "," + csv(app.getApplicant().getUsername()) + "," + csv(app.getPet().getUniqueId()) + ","
+                    + csv(app.getPet().getName()) + "," + app.getFiledAt() + "," + (app.getDecidedAt() == null ? "" : app.getDecidedAt())
+                    + "," + app.getStatus() + "\n");
+            }
+            out.flush();
+            channel.force(false);
+        }
+        engine.forget(old);
+        for (AdminUser admin : users.getAdmins()) {
+            admin.forgetApplications(old);
+        }
+        store.writeSnapshot();
+        return old.size();
+    }
+
+    private static String csv(String value) {
+        return value.indexOf(',') < 0 && value.indexOf('"') < 0 ? value : '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+// Flyweight Pet that reads its fields straight from the mapped columns
+class MappedPet extends Pet {
+    private final MappedPetRepository store;
+    private final int row;
+
+    MappedPet(MappedPetRepository store, int row) {
+        super(null, null, -1, 0, -1);
+        this.store = store;
+        this.row = row;
+    }
+
+    @Override public String getName() { return store.readName(row); }
+    @Override public String getUniqueId() { return store.readId(row); }
+    @Override int getSpeciesCode() { return store.readSpeciesCode(row); }
+    @Override public int getAge() { return store.readAge(row); }
+    @Override int getBreedCode() { return store.readBreedCode(row); }
+    @Override public AdoptionStatus getStatus() { return store.readStatus(row); }
+    @Override public void setStatus(AdoptionStatus status) { store.writeStatus(row, status); }
+    @Override public long getVersion() { return store.readVersion(row); }
+
+    @Override
+    public boolean transition(AdoptionStatus expected, AdoptionStatus status) {
+        if (!expected.canBecome(status)) {
+            throw new IllegalStateException("Pet cannot go from " + expected + " to " + status);
+        }
+        return store.compareAndWriteStatus(row, expected, status);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MappedPet && ((MappedPet) other).store == store && ((MappedPet) other).row == row;
+    }
+
+    @Override
+    public int hashCode() { return row; }
+}
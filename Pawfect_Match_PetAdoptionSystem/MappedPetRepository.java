@@ -0,0 +1,398 @@
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+
+// Off-heap pet store (-Dpawfect.store=mapped): one memory-mapped file per column,
+// species/breed dictionary-encoded, status packed in a byte. Only the dictionary lives on the heap.
+class MappedPetRepository implements PetRepository {
+    private static final int MAGIC = 0x50455453; // "PETS"
+    private static final int VERSION = 1;
+
+    // A growable memory-mapped file
+    private static class Column implements Closeable {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+
+        Column(Path file, int initialBytes) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(initialBytes, (int) channel.size()));
+        }
+
+        MappedByteBuffer ensure(long bytes) throws IOException {
+            if (bytes > buffer.capacity()) {
+                long size = Math.max(bytes, (long) buffer.capacity() * 2);
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Mapped column is full");
+                }
+                buffer.force();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    private final Column meta;      // magic, version, row count, strings end, dictionary end
+    private final Column status;    // byte per row
+    private final Column versions;  // long per row, bumped by every status write
+    private final Column age;       // int per row
+    private final Column species;   // dictionary code per row
+    private final Column breed;     // dictionary code per row
+    private final Column names;     // int offset per row into strings (id, then name)
+    private final Column strings;
+    private final Column dictionary;
+    private final Column idIndex;   // open-addressing hash table of row + 1, keyed by pet id
+    private final List<String> words = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private int[] speciesCodes = new int[0];  // dictionary code -> Vocabulary.SPECIES code, -1 if never a species
+    private int[] breedCodes = new int[0];    // dictionary code -> Vocabulary.BREEDS code, -1 if never a breed
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+    private int rows;
+    private int stringsEnd;
+    private int dictionaryEnd;
+    private int indexSlots;
+
+    static MappedPetRepository open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        return new MappedPetRepository(dir);
+    }
+
+    private MappedPetRepository(Path dir) throws IOException {
+        meta = new Column(dir.resolve("pets.meta"), 20);
+        status = new Column(dir.resolve("status.col"), 1 << 12);
+        versions = new Column(dir.resolve("version.col"), 1 << 15);
+        age = new Column(dir.resolve("age.col"), 1 << 14);
+        species = new Column(dir.resolve("species.col"), 1 << 14);
+        breed = new Column(dir.resolve("breed.col"), 1 << 14);
+        names = new Column(dir.resolve("names.col"), 1 << 14);
+        strings = new Column(dir.resolve("strings.dat"), 1 << 16);
+        dictionary = new Column(dir.resolve("dictionary.dat"), 1 << 12);
+        idIndex = new Column(dir.resolve("ids.idx"), 1 << 14);
+        MappedByteBuffer header = meta.buffer;
+        if (header.getInt(0) == MAGIC) {
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported pet store version in " + dir);
+            }
+            rows = header.getInt(8);
+            stringsEnd = header.getInt(12);
+            dictionaryEnd = header.getInt(16);
+            versions.ensure(8L * rows);   // stores written before the column existed start at version 0
+            for (int pos = 0; pos < dictionaryEnd; ) {
+                String word = readString(dictionary.buffer, pos);
+                pos += 2 + dictionary.buffer.getShort(pos);
+                codes.put(word, words.size());
+                words.add(word);
+            }
+            for (int row = 0; row < rows; row++) {
+                speciesCodes = resolve(speciesCodes, species.buffer.getInt(4 * row), Vocabulary.SPECIES);
+                breedCodes = resolve(breedCodes, breed.buffer.getInt(4 * row), Vocabulary.BREEDS);
+            }
+        } else {
+            header.putInt(0, MAGIC).putInt(4, VERSION);
+            writeHeader();
+        }
+        indexSlots = idIndex.buffer.capacity() / 4;
+    }
+
+    private void writeHeader() {
+        meta.buffer.putInt(8, rows).putInt(12, stringsEnd).putInt(16, dictionaryEnd);
+    }
+
+    @Override
+    public synchronized boolean addPet(Pet pet) {
+        if (containsId(pet.getUniqueId())) {
+            return false;
+        }
+        try {
+            int row = rows;
+            status.ensure(row + 1L).put(row, (byte) pet.getStatus().ordinal());
+            versions.ensure(8L * (row + 1)).putLong(8 * row, pet.getVersion());
+            age.ensure(4L * (row + 1)).putInt(4 * row, pet.getAge());
+            int speciesWord = code(pet.getSpecies());
+            int breedWord = code(pet.getBreed());
+            species.ensure(4L * (row + 1)).putInt(4 * row, speciesWord);
+            breed.ensure(4L * (row + 1)).putInt(4 * row, breedWord);
+            speciesCodes = resolve(speciesCodes, speciesWord, Vocabulary.SPECIES);
+            breedCodes = resolve(breedCodes, breedWord, Vocabulary.BREEDS);
+            names.ensure(4L * (row + 1)).putInt(4 * row, stringsEnd);
+            stringsEnd = writeString(strings, stringsEnd, pet.getUniqueId());
+            stringsEnd = writeString(strings, stringsEnd, pet.getName());
+            rows++;
+            indexRow(row);
+            writeHeader();
+            for (CatalogListener listener : listeners) {
+                listener.petAdded(new MappedPet(this, row));
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int code(String word) throws IOException {
+        Integer code = codes.get(word);
+        if (code == null) {
+            code = words.size();
+            dictionaryEnd = writeString(dictionary, dictionaryEnd, word);
+            codes.put(word, code);
+            words.add(word);
+        }
+        return code;
+    }
+
+    // Interns a dictionary word in the vocabulary the first time it shows up in that column
+    private int[] resolve(int[] table, int word, Vocabulary vocabulary) {
+        if (word >= table.length) {
+            int old = table.length;
+            table = Arrays.copyOf(table, Math.max(words.size(), word + 1));
+            Arrays.fill(table, old, table.length, -1);
+        }
+        if (table[word] < 0) {
+            table[word] = vocabulary.code(words.get(word));
+        }
+        return table;
+    }
+
+    private static int writeString(Column column, int pos, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("Value too long for the pet store");
+        }
+        MappedByteBuffer buffer = column.ensure(pos + 2L + bytes.length);
+        buffer.putShort(pos, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(pos + 2 + i, bytes[i]);
+        }
+        return pos + 2 + bytes.length;
+    }
+
+    private static String readString(MappedByteBuffer buffer, int pos) {
+        byte[] bytes = new byte[buffer.getShort(pos)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(pos + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void indexRow(int row) throws IOException {
+        if ((long) rows * 2 > indexSlots) {
+            // rebuild at double size, keeping the load factor under one half
+            indexSlots *= 2;
+            MappedByteBuffer table = idIndex.ensure(4L * indexSlots);
+            for (int slot = 0; slot < indexSlots; slot++) {
+                table.putInt(4 * slot, 0);
+            }
+            for (int r = 0; r < rows; r++) {
+                table.putInt(4 * freeSlot(readId(r)), r + 1);
+            }
+        } else {
+            idIndex.buffer.putInt(4 * freeSlot(readId(row)), row + 1);
+        }
+    }
+
+    private int freeSlot(String id) {
+        int slot = mix(id.hashCode()) & (indexSlots - 1);
+        while (idIndex.buffer.getInt(4 * slot) != 0) {
+            slot = (slot + 1) & (indexSlots - 1);
+        }
+        return slot;
+    }
+
+    private int findRow(String id) {
+        int slot = mix(id.hashCode()) & (indexSlots - 1);
+        int entry;
+        while ((entry = idIndex.buffer.getInt(4 * slot)) != 0) {
+            if (readId(entry - 1).equals(id)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & (indexSlots - 1);
+        }
+        return -1;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    synchronized String readId(int row) { return readString(strings.buffer, names.buffer.getInt(4 * row)); }
+
+    synchronized String readName(int row) {
+        int pos = names.buffer.getInt(4 * row);
+        return readString(strings.buffer, pos + 2 + strings.buffer.getShort(pos));
+    }
+
+    synchronized int readSpeciesCode(int row) { return speciesCodes[species.buffer.getInt(4 * row)]; }
+    synchronized int readBreedCode(int row) { return breedCodes[breed.buffer.getInt(4 * row)]; }
+    synchronized int readAge(int row) { return age.buffer.getInt(4 * row); }
+    synchronized Pet.AdoptionStatus readStatus(int row) { return Pet.AdoptionStatus.values()[status.buffer.get(row)]; }
+    synchronized long readVersion(int row) { return versions.buffer.getLong(8 * row); }
+
+    // The repository lock makes the compare and the write one step for every flyweight of the row
+    synchronized boolean compareAndWriteStatus(int row, Pet.AdoptionStatus expected, Pet.AdoptionStatus value) {
+        if (readStatus(row) != expected) {
+            return false;
+        }
+        writeStatus(row, value);
+        return true;
+    }
+
+    synchronized void writeStatus(int row, Pet.AdoptionStatus value) {
+        Pet.AdoptionStatus old = readStatus(row);
+        status.buffer.put(row, (byte) value.ordinal());
+        versions.buffer.putLong(8 * row, versions.buffer.getLong(8 * row) + 1);
+        if (old != value) {
+            for (CatalogListener listener : listeners) {
+                listener.statusChanged(new MappedPet(this, row), old);
+            }
+        }
+    }
+
+    @Override
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public synchronized Pet getPet(String uniqueId) {
+        int row = findRow(uniqueId);
+        return row < 0 ? null : new MappedPet(this, row);
+    }
+
+    @Override public synchronized boolean containsId(String uniqueId) { return findRow(uniqueId) >= 0; }
+    @Override public synchronized int size() { return rows; }
+
+    @Override
+    public synchronized int count(Pet.AdoptionStatus value) {
+        int count = 0;
+        byte wanted = (byte) value.ordinal();
+        for (int row = 0; row < rows; row++) {
+            if (status.buffer.get(row) == wanted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<Pet> getAllPets() {
+        return () -> new Iterator<Pet>() {
+            private int row;
+
+            @Override public boolean hasNext() { return row < size(); }
+            @Override public Pet next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new MappedPet(MappedPetRepository.this, row++);
+            }
+        };
+    }
+
+    @Override
+    public List<Pet> findByStatus(Pet.AdoptionStatus value) {
+        return search("", 0, value);
+    }
+
+    @Override
+    public synchronized List<Pet> findByBreed(String value) {
+        List<Pet> results = new ArrayList<>();
+        int code = Vocabulary.BREEDS.find(value);
+        for (int row = 0; code >= 0 && row < rows; row++) {
+            if (breedCodes[breed.buffer.getInt(4 * row)] == code) {
+                results.add(new MappedPet(this, row));
+            }
+        }
+        return results;
+    }
+
+    // No name index on disk: the status byte is checked first and only those rows' names are read
+    @Override
+    public synchronized Pet findByName(String name, Pet.AdoptionStatus value) {
+        String wanted = PetCatalog.normalize(name);
+        byte ordinal = (byte) value.ordinal();
+        for (int row = 0; row < rows; row++) {
+            if (status.buffer.get(row) == ordinal && PetCatalog.normalize(readName(row)).equals(wanted)) {
+                return new MappedPet(this, row);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized List<Pet> search(String speciesFilter, int maxAge, Pet.AdoptionStatus value) {
+        // resolve the species filter against the vocabulary once, then scan the primitive columns
+        boolean[] matching = Vocabulary.SPECIES.matching(speciesFilter);
+        boolean[] speciesMatch = new boolean[speciesCodes.length];
+        for (int i = 0; i < speciesMatch.length; i++) {
+            speciesMatch[i] = Vocabulary.contains(matching, speciesCodes[i]);
+        }
+        int wanted = value == null ? -1 : value.ordinal();
+        List<Pet> results = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            if ((wanted < 0 || status.buffer.get(row) == wanted)
+                    && (maxAge <= 0 || age.buffer.getInt(4 * row) <= maxAge)
+                    && speciesMatch[species.buffer.getInt(4 * row)]) {
+                results.add(new MappedPet(this, row));
+            }
+        }
+        return results;
+    }
+
+    // No sorted index on disk: one pass over the rows keeps the next limit + 1 in a bounded heap,
+    // so memory stays at the page size while time grows with the store
+    @Override
+    public synchronized Page<Pet> page(Pet.AdoptionStatus value, PetOrder order, String cursor, int limit) {
+        Pet after = order.after(cursor);
+        Comparator<Pet> byOrder = order::compare;
+        PriorityQueue<Pet> heap = new PriorityQueue<>(limit + 2, byOrder.reversed());
+        int wanted = value == null ? -1 : value.ordinal();
+        for (int row = 0; row < rows; row++) {
+            if (wanted >= 0 && status.buffer.get(row) != wanted) {
+                continue;
+            }
+            Pet pet = new MappedPet(this, row);
+            if (after != null && order.compare(pet, after) <= 0) {
+                continue;
+            }
+            if (heap.size() <= limit) {
+                heap.add(pet);
+            } else if (order.compare(pet, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(pet);
+            }
+        }
+        List<Pet> fetched = new ArrayList<>(heap);
+        fetched.sort(byOrder);
+        return Page.of(fetched, limit, order::cursor);
+    }
+
+    @Override
+    public synchronized List<Pet> addPets(List<Pet> pets) {
+        return PetRepository.super.addPets(pets);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writeHeader();
+        for (Column column : new Column[] {status, versions, age, species, breed, names, strings, dictionary, idIndex, meta}) {
+            column.close();
+        }
+    }
+}
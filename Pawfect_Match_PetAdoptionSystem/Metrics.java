@@ -0,0 +1,133 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
+
+// Process-wide metrics for the hot paths, shown on the admin System Stats screen and
+// exported in Prometheus text format (to a file, or served with -Dpawfect.metrics.port)
+final class Metrics {
+    static final LatencyHistogram AUTHENTICATE = new LatencyHistogram("authenticate", "Login credential checks");
+    static final LatencyHistogram SEARCH_PETS = new LatencyHistogram("search_pets", "Pet searches by species and age");
+    static final LatencyHistogram APPLY = new LatencyHistogram("apply_for_adoption", "Filing an adoption application");
+    static final LatencyHistogram APPROVE_REJECT = new LatencyHistogram("approve_reject", "Approving or rejecting an application");
+    static final LatencyHistogram[] TIMERS = {AUTHENTICATE, SEARCH_PETS, APPLY, APPROVE_REJECT};
+
+    static final LongAdder LOGIN_FAILURES = new LongAdder();
+    static final LongAdder APPLICATIONS_FILED = new LongAdder();
+    static final LongAdder APPLY_CONFLICTS = new LongAdder();
+    static final LongAdder APPROVALS = new LongAdder();
+    static final LongAdder REJECTIONS = new LongAdder();
+    static final RateWindow APPROVAL_RATE = new RateWindow();
+
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, String> gaugeHelp = new ConcurrentHashMap<>();
+    private static final List<java.util.function.Consumer<StringBuilder>> sections = new CopyOnWriteArrayList<>();
+    private static volatile com.sun.net.httpserver.HttpServer server;
+
+    private Metrics() {
+    }
+
+    static void gauge(String name, String help, LongSupplier value) {
+        gaugeHelp.put(name, help);
+        gauges.put(name, value);
+    }
+
+    // Extra metric families appended to the Prometheus export
+    static void section(java.util.function.Consumer<StringBuilder> section) {
+        sections.add(section);
+    }
+
+    static void printStats(PrintStream out) {
+        out.println(String.format("%-20s %10s %10s %10s %10s %10s", "Operation", "count", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (LatencyHistogram timer : TIMERS) {
+            out.println(String.format("%-20s %10d %10.3f %10.3f %10.3f %10.3f", timer.name, timer.count(),
+                timer.percentile(0.5) / 1e6, timer.percentile(0.9) / 1e6, timer.percentile(0.99) / 1e6, timer.max() / 1e6));
+        }
+        out.println();
+        for (String name : new TreeSet<>(gauges.keySet())) {
+            out.println(String.format("%-28s %d", gaugeHelp.get(name) + ":", gauges.get(name).getAsLong()));
+        }
+        out.println(String.format("%-28s %d", "Approvals per minute:", APPROVAL_RATE.lastMinute()));
+        out.println(String.format("%-28s %d", "Applications filed:", APPLICATIONS_FILED.sum()));
+        out.println(String.format("%-28s %d", "Pet already taken:", APPLY_CONFLICTS.sum()));
+        out.println(String.format("%-28s %d / %d", "Approved / rejected:", APPROVALS.sum(), REJECTIONS.sum()));
+        out.println(String.format("%-28s %d", "Failed logins:", LOGIN_FAILURES.sum()));
+    }
+
+    static String prometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (LatencyHistogram timer : TIMERS) {
+            String name = "pawfect_" + timer.name + "_seconds";
+            sb.append("# HELP ").append(name).append(' ').append(timer.help).append('\n');
+            sb.append("# TYPE ").append(name).append(" summary\n");
+            for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                sb.append(name).append("{quantile=\"").append(q).append("\"} ").append(timer.percentile(q) / 1e9).append('\n');
+            }
+            sb.append(name).append("_sum ").append(timer.sum() / 1e9).append('\n');
+            sb.append(name).append("_count ").append(timer.count()).append('\n');
+        }
+        counter(sb, "pawfect_login_failures_total", "Failed login attempts", LOGIN_FAILURES.sum());
+        counter(sb, "pawfect_applications_filed_total", "Adoption applications filed", APPLICATIONS_FILED.sum());
+        counter(sb, "pawfect_apply_conflicts_total", "Applications refused because the pet was reserved or adopted first",
+            APPLY_CONFLICTS.sum());
+        counter(sb, "pawfect_approvals_total", "Applications approved", APPROVALS.sum());
+        counter(sb, "pawfect_rejections_total", "Applications rejected, including automatic ones", REJECTIONS.sum());
+        for (String name : new TreeSet<>(gauges.keySet())) {
+            gauge(sb, "pawfect_" + name, gaugeHelp.get(name), gauges.get(name).getAsLong());
+        }
+        gauge(sb, "pawfect_approvals_per_minute", "Approvals in the last 60 seconds", APPROVAL_RATE.lastMinute());
+        for (java.util.function.Consumer<StringBuilder> section : sections) {
+            section.accept(sb);
+        }
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" gauge\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    static void export(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, prometheus().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Serves GET /metrics for Prometheus scrapes on a daemon thread
+    static void serve(int port) throws IOException {
+        server = com.sun.net.httpserver.HttpServer.create(new java.net.InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = prometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(java.util.concurrent.Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "pawfect-metrics");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    static void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import java.util.*;
+import java.nio.charset.StandardCharsets;
+
+// One page of a listing and the cursor for the next one (null after the last page). A cursor
+// holds the sort order and the last key shown, so the next page starts right after it even if
+// pets or applications were added in between. Callers treat it as an opaque string.
+final class Page<T> {
+    final List<T> items;
+    final String next;
+
+    Page(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // fetched holds up to limit + 1 items; the extra one only tells that there is a next page
+    static <T> Page<T> of(List<T> fetched, int limit, java.util.function.Function<T, String> cursor) {
+        if (fetched.size() <= limit) {
+            return new Page<>(fetched, null);
+        }
+        List<T> items = new ArrayList<>(fetched.subList(0, limit));
+        return new Page<>(items, cursor.apply(items.get(limit - 1)));
+    }
+
+    static String encode(String... fields) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(String.join("\n", fields).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The cursor's fields; the first one names the order it was made for
+    static String[] decode(String cursor, String order, int fields) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", fields);
+            if (parts.length == fields && parts[0].equals(order)) {
+                return parts;
+            }
+        } catch (IllegalArgumentException e) {
+            // not base64, reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+}
@@ -0,0 +1,51 @@
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// Salted password hashing (PBKDF2), cost set with -Dpawfect.kdf.iterations
+class PasswordHasher {
+    static final int DEFAULT_ITERATIONS = Integer.getInteger("pawfect.kdf.iterations", 10000);
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    // Stored form of a password: never the plain text
+    static class Credential {
+        final byte[] salt;
+        final byte[] hash;
+        final int iterations;
+
+        Credential(byte[] salt, byte[] hash, int iterations) {
+            this.salt = salt;
+            this.hash = hash;
+            this.iterations = iterations;
+        }
+
+        boolean matches(String password) {
+            return MessageDigest.isEqual(hash, PasswordHasher.hash(password, salt, iterations));
+        }
+    }
+
+    static Credential create(String password) {
+        return create(password, DEFAULT_ITERATIONS);
+    }
+
+    static Credential create(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return new Credential(salt, hash(password, salt, iterations), iterations);
+    }
+
+    static byte[] hash(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
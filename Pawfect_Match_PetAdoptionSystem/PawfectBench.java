@@ -0,0 +1,387 @@
+import java.util.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Hot-path benchmarks, run without the console:
+//   java PawfectMatch --bench [--sizes 1000,100000] [--only search] [--json results.json]
+// Throughput mode with warmup/measurement iterations in the style of JMH, but this is its own
+// harness (no forks, no blackholes); --json writes its own format, laid out like JMH's so the
+// same plotting scripts can read it
+class PawfectBench {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_MILLIS = 500;
+    static final String[] SPECIES = {"Dog", "Cat", "Rabbit", "Hamster", "Parrot", "Turtle", "Guinea Pig", "Ferret"};
+
+    static volatile long sink;  // keeps results alive so the JIT can't drop the work
+
+    // One benchmark: setup() builds fresh state at the given size, op() runs a single operation
+    private interface Benchmark {
+        void setup(int size);
+        long op();
+    }
+
+    private static class Result {
+        final String name;
+        final int size;
+        final double[] scores;  // ops/ms per measurement iteration
+
+        Result(String name, int size, double[] scores) {
+            this.name = name;
+            this.size = size;
+            this.scores = scores;
+        }
+
+        double mean() {
+            double sum = 0;
+            for (double score : scores) {
+                sum += score;
+            }
+            return sum / scores.length;
+        }
+
+        double error() {
+            double mean = mean();
+            double squares = 0;
+            for (double score : scores) {
+                squares += (score - mean) * (score - mean);
+            }
+            // ~99.9% confidence half-width, as JMH reports it
+            return 3.29 * Math.sqrt(squares / Math.max(1, scores.length - 1)) / Math.sqrt(scores.length);
+        }
+    }
+
+    public static void run(String[] args) throws IOException {
+        int[] sizes = {1_000, 100_000};
+        String only = null;
+        String json = null;
+        for (int i = 0; i < args.length - 1; i += 2) {
+            switch (args[i]) {
+                case "--sizes":
+                    String[] parts = args[i + 1].split(",");
+                    sizes = new int[parts.length];
+                    for (int k = 0; k < parts.length; k++) {
+                        sizes[k] = Integer.parseInt(parts[k].trim().replace("_", ""));
+                    }
+                    break;
+                case "--only": only = args[i + 1]; break;
+                case "--json": json = args[i + 1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Map<String, Benchmark> benchmarks = new LinkedHashMap<>();
+        benchmarks.put("searchPets", new SearchBenchmark());
+        benchmarks.put("searchShelters", new ShelterSearchBenchmark());
+        benchmarks.put("searchCached", new CachedSearchBenchmark());
+        benchmarks.put("authenticate", new LoginBenchmarkOp());
+        benchmarks.put("applyForAdoption", new ApplyBenchmark());
+        benchmarks.put("approveReject", new ApproveBenchmark());
+        benchmarks.put("recommend", new RecommendBenchmark());
+
+        List<Result> results = new ArrayList<>();
+        System.out.println(String.format("%-20s %-10s %14s %12s", "Benchmark", "size", "ops/ms", "error"));
+        for (Map.Entry<String, Benchmark> entry : benchmarks.entrySet()) {
+            if (only != null && !entry.getKey().toLowerCase(Locale.ROOT).contains(only.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (int size : sizes) {
+                Result result = measure(entry.getKey(), entry.getValue(), size);
+                results.add(result);
+                System.out.println(String.format("%-20s %-10d %14.3f %12.3f", result.name, size, result.mean(), result.error()));
+            }
+        }
+        if (json != null) {
+            writeJson(Paths.get(json), results);
+            System.out.println("Results written to " + json);
+        }
+    }
+
+    private static Result measure(String name, Benchmark benchmark, int size) {
+        double[] scores = new double[MEASUREMENT_ITERATIONS];
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; i++) {
+            benchmark.setup(size);
+            long ops = 0;
+            long acc = 0;
+            long start = System.nanoTime();
+            long deadline = start + ITERATION_MILLIS * 1_000_000;
+            long now;
+            do {
+                for (int k = 0; k < 64; k++) {
+                    acc += benchmark.op();
+                }
+                ops += 64;
+                now = System.nanoTime();
+            } while (now < deadline);
+            sink += acc;
+            if (i >= WARMUP_ITERATIONS) {
+                scores[i - WARMUP_ITERATIONS] = ops / ((now - start) / 1e6);
+            }
+        }
+        return new Result(name, size, scores);
+    }
+
+    private static void writeJson(Path file, List<Result> results) throws IOException {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append("    {\n");
+            json.append("        \"harness\" : \"PawfectBench\",\n");   // not JMH: its own timing loop, one fork
+            json.append("        \"benchmark\" : \"PawfectBench.").append(result.name).append("\",\n");
+            json.append("        \"mode\" : \"thrpt\",\n");
+            json.append("        \"threads\" : 1,\n");
+            json.append("        \"forks\" : 1,\n");
+            json.append("        \"jvm\" : \"").append(System.getProperty("java.home").replace("\\", "\\\\")).append("\",\n");
+            json.append("        \"jdkVersion\" : \"").append(System.getProperty("java.version")).append("\",\n");
+            json.append("        \"warmupIterations\" : ").append(WARMUP_ITERATIONS).append(",\n");
+            json.append("        \"warmupTime\" : \"").append(ITERATION_MILLIS).append(" ms\",\n");
+            json.append("        \"measurementIterations\" : ").append(MEASUREMENT_ITERATIONS).append(",\n");
+            json.append("        \"measurementTime\" : \"").append(ITERATION_MILLIS).append(" ms\",\n");
+            json.append("        \"params\" : {\n            \"size\" : \"").append(result.size).append("\"\n        },\n");
+            json.append("        \"primaryMetric\" : {\n");
+            json.append("            \"score\" : ").append(result.mean()).append(",\n");
+            json.append("            \"scoreError\" : ").append(result.error()).append(",\n");
+            json.append("            \"scoreUnit\" : \"ops/ms\",\n");
+            json.append("            \"rawData\" : [\n                [\n");
+            for (int k = 0; k < result.scores.length; k++) {
+                json.append("                    ").append(result.scores[k]).append(k + 1 < result.scores.length ? ",\n" : "\n");
+            }
+            json.append("                ]\n            ]\n        },\n");
+            json.append("        \"secondaryMetrics\" : {\n        }\n");
+            json.append(i + 1 < results.size() ? "    },\n" : "    }\n");
+        }
+        json.append("]\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Pet randomPet(Random random, int i) {
+        return new Pet("Pet" + i, "B" + i, SPECIES[random.nextInt(SPECIES.length)], random.nextInt(16), "Mixed");
+    }
+
+    // catalog.search as used by searchPets: partial species match, max age, available only
+    private static class SearchBenchmark implements Benchmark {
+        private PetCatalog catalog;
+        private final Random random = new Random(1);
+
+        @Override
+        public void setup(int size) {
+            if (catalog != null && catalog.size() == size) {
+                return;
+            }
+            catalog = new PetCatalog();
+            Random data = new Random(42);
+            for (int i = 0; i < size; i++) {
+                Pet pet = randomPet(data, i);
+                catalog.addPet(pet);
+                if (data.nextInt(4) == 0) {
+                    pet.setStatus(Pet.AdoptionStatus.ADOPTED);
+                }
+            }
+        }
+
+        @Override
+        public long op() {
+            String species = SPECIES[random.nextInt(SPECIES.length)].substring(0, 3);
+            return catalog.search(species, 1 + random.nextInt(15), Pet.AdoptionStatus.AVAILABLE).size();
+        }
+    }
+
+    // Popular filters through the search cache, with a pet changing status every 100 searches
+    private static class CachedSearchBenchmark implements Benchmark {
+        private PetCatalog catalog;
+        private SearchCache cache;
+        private List<Pet> pets;
+        private long ops;
+        private final Random random = new Random(1);
+
+        @Override
+        public void setup(int size) {
+            catalog = new PetCatalog();
+            cache = new SearchCache(256, Duration.ofMinutes(5));
+            catalog.addListener(cache);
+            pets = new ArrayList<>();
+            Random data = new Random(42);
+            for (int i = 0; i < size; i++) {
+                Pet pet = randomPet(data, i);
+                catalog.addPet(pet);
+                pets.add(pet);
+            }
+        }
+
+        @Override
+        public long op() {
+            if (++ops % 100 == 0) {
+                Pet pet = pets.get(random.nextInt(pets.size()));
+                pet.setStatus(pet.getStatus() == Pet.AdoptionStatus.AVAILABLE ? Pet.AdoptionStatus.ADOPTED : Pet.AdoptionStatus.AVAILABLE);
+            }
+            String species = SPECIES[random.nextInt(3)].substring(0, 3);
+            int maxAge = 1 + random.nextInt(5);
+            return cache.get(species, maxAge, Pet.AdoptionStatus.AVAILABLE,
+                () -> catalog.search(species, maxAge, Pet.AdoptionStatus.AVAILABLE)).pets.size();
+        }
+    }
+
+    // The same search fanned out over four shelter shards holding the pets between them
+    private static class ShelterSearchBenchmark implements Benchmark {
+        private static final String[] SHELTERS = {"Main", "North", "South", "East"};
+        private ShelterNetwork network;
+        private int size;
+        private final Random random = new Random(1);
+
+        @Override
+        public void setup(int size) {
+            if (network != null && this.size == size) {
+                return;
+            }
+            this.size = size;
+            try {
+                network = new ShelterNetwork(shelter -> new PetCatalog());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Random data = new Random(42);
+            for (int i = 0; i < size; i++) {
+                Pet pet = randomPet(data, i);
+                network.addPet(pet, SHELTERS[i % SHELTERS.length]);
+                if (data.nextInt(4) == 0) {
+                    pet.setStatus(Pet.AdoptionStatus.ADOPTED);
+                }
+            }
+        }
+
+        @Override
+        public long op() {
+            String species = SPECIES[random.nextInt(SPECIES.length)].substring(0, 3);
+            return network.search(species, 1 + random.nextInt(15), Pet.AdoptionStatus.AVAILABLE).size();
+        }
+    }
+
+    // RecommendationEngine top-5 over every available pet, bypassing the per-user cache
+    private static class RecommendBenchmark implements Benchmark {
+        private RecommendationEngine engine;
+        private int size;
+        private final Random random = new Random(5);
+
+        @Override
+        public void setup(int size) {
+            if (engine != null && this.size == size) {
+                return;
+            }
+            this.size = size;
+            PetCatalog catalog = new PetCatalog();
+            Random data = new Random(42);
+            for (int i = 0; i < size; i++) {
+                catalog.addPet(randomPet(data, i));
+            }
+            engine = new RecommendationEngine(catalog);
+            engine.rebuild();
+        }
+
+        @Override
+        public long op() {
+            String species = SPECIES[random.nextInt(SPECIES.length)].toLowerCase(Locale.ROOT);
+            RecommendationEngine.Preferences prefs = engine.preferences(Collections.emptyList(), species, random.nextInt(16));
+            return engine.score(prefs, 5).size();
+        }
+    }
+
+    // UserRegistry login: hash lookup plus credential check (kdf cost 1)
+    private static class LoginBenchmarkOp implements Benchmark {
+        private UserRegistry registry;
+        private int size;
+        private final Random random = new Random(2);
+
+        @Override
+        public void setup(int size) {
+            if (registry != null && this.size == size) {
+                return;
+            }
+            this.size = size;
+            registry = new UserRegistry();
+            for (int i = 0; i < size; i++) {
+                registry.registerUser(new RegularUser("user" + i, PasswordHasher.create("pw" + i, 1), "user" + i + "@mail.com"));
+            }
+        }
+
+        @Override
+        public long op() {
+            int n = random.nextInt(size);
+            return registry.loginUser("user" + n, "pw" + n) != null ? 1 : 0;
+        }
+    }
+
+    // AdoptionEngine.apply against a catalog of the given size; every other reservation is
+    // released again so applicants keep finding available pets
+    private static class ApplyBenchmark implements Benchmark {
+        private AdoptionEngine engine;
+        private List<Pet> pets;
+        private RegularUser[] users;
+        private final Random random = new Random(3);
+
+        @Override
+        public void setup(int size) {
+            engine = new AdoptionEngine();
+            pets = new ArrayList<>();
+            Random data = new Random(42);
+            for (int i = 0; i < size; i++) {
+                pets.add(randomPet(data, i));
+            }
+            PasswordHasher.Credential credential = PasswordHasher.create("pw", 1);
+            users = new RegularUser[1024];
+            for (int i = 0; i < users.length; i++) {
+                users[i] = new RegularUser("user" + i, credential, "user" + i + "@mail.com");
+            }
+        }
+
+        @Override
+        public long op() {
+            Pet pet = pets.get(random.nextInt(pets.size()));
+            AdoptionApplication application = engine.apply(users[random.nextInt(users.length)], pet);
+            if (application != null && random.nextBoolean()) {
+                engine.reject(application);
+            }
+            return application != null ? 1 : 0;
+        }
+    }
+
+    // Admin flow: look up the pending application by pet name and approve it
+    // (the second applicant finds the pet reserved and is turned away)
+    private static class ApproveBenchmark implements Benchmark {
+        private AdoptionEngine engine;
+        private List<Pet> pets;
+        private int next;
+        private int size;
+
+        @Override
+        public void setup(int size) {
+            this.size = size;
+            engine = new AdoptionEngine();
+            pets = new ArrayList<>();
+            next = 0;
+            Random data = new Random(42);
+            PasswordHasher.Credential credential = PasswordHasher.create("pw", 1);
+            RegularUser first = new RegularUser("first", credential, "first@mail.com");
+            RegularUser second = new RegularUser("second", credential, "second@mail.com");
+            for (int i = 0; i < size; i++) {
+                Pet pet = randomPet(data, i);
+                pets.add(pet);
+                engine.apply(first, pet);
+                engine.apply(second, pet);
+            }
+        }
+
+        @Override
+        public long op() {
+            if (next == pets.size()) {
+                setup(size);   // every pet adopted: start over with fresh applications
+            }
+            Pet pet = pets.get(next++);
+            List<AdoptionApplication> matches = engine.getStore().findPending(pet.getName());
+            return matches.isEmpty() ? 0 : engine.approve(matches.get(0)).autoRejected.size();
+        }
+    }
+}
@@ -1,217 +1,195 @@
 import java.util.*;
-import java.util.stream.Collectors;
-import java.time.LocalDate;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
 
-abstract class Being {      //inheritance / abstraction
-    private String name;
-    private String uniqueId;
-
-    public Being(String name, String uniqueId) {
-        this.name = name;
-        this.uniqueId = uniqueId;
-    }
-
-    public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
-    public String getUniqueId() { return uniqueId; }
-}
-
-interface Authenticatable {
-    boolean authenticate(String username, String password);
-}
-
-// inheritance
-abstract class User implements Authenticatable {
-    private String username;
-    private String password;
-    private String email;
-
-    public User(String username, String password, String email) {
-        this.username = username;
-        this.password = password;
-        this.email = email;
-    }
-
-    // Getters and setters
-    public String getUsername() { return username; }
-    public String getEmail() { return email; }
-
-    public abstract void displayDashboard();
-
-    @Override
-    public boolean authenticate(String username, String password) {
-        return this.username.equals(username) && this.password.equals(password);
-    }
-}
-
-// encapsulation  / inheritance
-class Pet extends Being {
-    private String species;
-    private int age;
-    private String breed;
-    private AdoptionStatus status;
-
-    public enum AdoptionStatus {
-        AVAILABLE, PENDING, ADOPTED
-    }
-
-    public Pet(String name, String uniqueId, String species, int age, String breed) {
-        super(name, uniqueId);
-        this.species = species;
-        this.age = age;
-        this.breed = breed;
-        this.status = AdoptionStatus.AVAILABLE;
-    }
-
-    // Getters and setters
-    public String getSpecies() { return species; }
-    public int getAge() { return age; }
-    public String getBreed() { return breed; }
-    public AdoptionStatus getStatus() { return status; }
-    public void setStatus(AdoptionStatus status) { this.status = status; }
-
-    @Override
-    public String toString() {
-        return String.format("Name: %s | Species: %s | Age: %d | Breed: %s | Status: %s", 
-            getName(), species, age, breed, status);
-    }
-}
-
-// Adoption Application class
-class AdoptionApplication {
-    private User applicant;
-    private Pet pet;
-    private LocalDate applicationDate;
-    private ApplicationStatus status;
-
-    public enum ApplicationStatus {
-        PENDING, APPROVED, REJECTED
-    }
+// Main Application Class
+public class PawfectMatch {
+    private static final int KEYWORD_RESULTS = 10;
+    private static final int SUGGESTIONS = 5;
+    private static final int RECOMMENDATIONS = 5;
+
+    private final Scanner scanner;
+    private final PrintStream out;
+    private final ScreenOutput screen;
+    private final Path fileRoot;   // remote sessions: the only directory they may read or write, null locally
+    private static UserRegistry users = new UserRegistry();
+    private static ShelterNetwork catalog;
+    private static AdoptionEngine engine = new AdoptionEngine();
+    private static PersistentStore store;
+    private static AdoptionService service;
+    private static MaintenanceScheduler maintenance;
+    private static AdoptionStats stats = new AdoptionStats();
 
-    public AdoptionApplication(User applicant, Pet pet) {
-        this.applicant = applicant;
-        this.pet = pet;
-        this.applicationDate = LocalDate.now();
-        this.status = ApplicationStatus.PENDING;
-    }
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--bench-startup")) {
+            try {
+                StartupBenchmark.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("\n!! Startup benchmark failed: " + e.getMessage() + " !!\n");
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--bench-login")) {
+            LoginBenchmark.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--bench")) {
+            try {
+                PawfectBench.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException e) {
+                System.out.println("\n!! Could not write benchmark results: " + e.getMessage() + " !!\n");
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--stress-adoption")) {
+            try {
+                AdoptionStress.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--load")) {
+            try {
+                LoadGenerator.run(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("\n!! Load run failed: " + e.getMessage() + " !!\n");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
 
-    // Getters
-    public User getApplicant() { return applicant; }
-    public Pet getPet() { return pet; }
-    public LocalDate getApplicationDate() { return applicationDate; }
-    public ApplicationStatus getStatus() { return status; }
-    public void setStatus(ApplicationStatus status) { this.status = status; }
-}
+        // Restore saved state, or seed some initial data on first run (-Dpawfect.data= disables saving)
+        String dataDir = System.getProperty("pawfect.data", "pawfect-data");
+        try {
+            // -Dpawfect.store=mapped keeps pets off-heap in memory-mapped column files, one directory per shelter
+            Path petDir = Paths.get(dataDir.isEmpty() ? "pawfect-data" : dataDir, "pets");
+            boolean mapped = "mapped".equals(System.getProperty("pawfect.store"));
+            catalog = new ShelterNetwork(shelter -> !mapped ? new PetCatalog()
+                : MappedPetRepository.open(shelter.equalsIgnoreCase(ShelterNetwork.DEFAULT) ? petDir
+                    : petDir.resolveSibling("pets-" + shelter.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-"))));
+        } catch (IOException e) {
+            System.out.println("\n!! Could not open the pet store: " + e.getMessage() + " !!\n");
+            return;
+        }
+        store = new PersistentStore(Paths.get(dataDir.isEmpty() ? "." : dataDir), users, catalog, engine);
+        engine.getStore().addListener(catalog);
+        try {
+            if (dataDir.isEmpty() || !store.restore()) {
+                seedInitialData();
+            }
+            for (AdminUser admin : users.getAdmins()) {
+                catalog.open(admin.getShelter());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("\n!! Could not load saved data: " + e.getMessage() + " !!\n");
+            return;
+        }
+        service = new AdoptionService(users, catalog, engine, store);
+        stats.rebuild(catalog, engine.getStore());
+        catalog.addListener(stats);
+        engine.getStore().addListener(stats);
+        startMetrics();
+        maintenance = new MaintenanceScheduler(engine, store, users,
+            dataDir.isEmpty() ? null : Paths.get(dataDir, "applications-archive.csv"));
+
+        // --import <file> / --export <file> run without the menus (CSV or JSON by extension)
+        if (args.length > 1 && (args[0].equals("--import") || args[0].equals("--export"))) {
+            try {
+                if (args[0].equals("--import")) {
+                    AdminUser owner = users.getAdmins().isEmpty() ? null : users.getAdmins().get(0);
+                    printImportResult(System.out, service.importPets(Paths.get(args[1]), owner));
+                } else {
+                    System.out.println(service.exportPets(Paths.get(args[1])) + " pets exported to " + args[1]);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("\n!! " + args[0].substring(2) + " failed: " + e.getMessage() + " !!\n");
+            }
+            closeStore();
+            return;
+        }
 
-class RegularUser extends User {
-    private List<AdoptionApplication> applications;
+        // --batch <commands> [--out <results>] runs a command file without the menus
+        if (args.length > 1 && args[0].equals("--batch")) {
+            String results = args.length > 3 && args[2].equals("--out") ? args[3] : null;
+            try {
+                BatchRunner.run(service, store, Paths.get(args[1]), results == null ? null : Paths.get(results));
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("\n!! batch failed: " + e.getMessage() + " !!\n");
+            }
+            closeStore();
+            return;
+        }
 
-    public RegularUser(String username, String password, String email) {
-        super(username, password, email);
-        this.applications = new ArrayList<>();
-    }
+        maintenance.start(service::rebuildIndexes);
+
+        // --server [port] [--bind address] serves the same menus to many TCP clients at once
+        if (args.length > 0 && args[0].equals("--server")) {
+            Runtime.getRuntime().addShutdownHook(new Thread(PawfectMatch::closeStore));
+            int port = PawfectServer.DEFAULT_PORT;
+            String bind = null;
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--bind") && i + 1 < args.length) {
+                    bind = args[++i];
+                } else {
+                    port = Integer.parseInt(args[i]);
+                }
+            }
+            Path files = Paths.get(dataDir.isEmpty() ? "pawfect-data" : dataDir, "files");
+            try {
+                java.net.InetAddress address = bind == null ? java.net.InetAddress.getLoopbackAddress()
+                    : java.net.InetAddress.getByName(bind);
+                new PawfectServer(port, address, files).serve();
+            } catch (IOException e) {
+                System.out.println("\n!! Server stopped: " + e.getMessage() + " !!\n");
+            }
+            return;
+        }
 
-    public void applyForAdoption(Pet pet) {
-        AdoptionApplication application = new AdoptionApplication(this, pet);
-        applications.add(application);
+        new PawfectMatch(System.in, System.out, Charset.defaultCharset()).run();
+        closeStore();
     }
 
-    public List<AdoptionApplication> getApplications() {
-        return applications;
+    // One interactive session (the local console, or one client in server mode)
+    PawfectMatch(InputStream in, OutputStream sink, Charset charset) {
+        this(in, sink, charset, null);
     }
 
-    @Override // POLYMORPHISM
-    public void displayDashboard() {
-        System.out.println("\n╔══════════════════════════════════╗");  
-        System.out.println("║          User Dashboard          ║");
-        System.out.println("╚══════════════════════════════════╝");
-        System.out.println("Welcome, " + getUsername());
-        System.out.println("Email: " + getEmail());
-        System.out.println("Adoption Applications:");
-        for (AdoptionApplication app : applications) {
-            System.out.println(app.getPet().getName() + " - " + app.getStatus());
+    PawfectMatch(InputStream in, OutputStream sink, Charset charset, Path fileRoot) {
+        this.fileRoot = fileRoot;
+        this.screen = new ScreenOutput(sink, charset);
+        try {
+            this.out = new PrintStream(screen, false, charset.name());   // same charset as the screen's own appends
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException("Unsupported charset " + charset, e);
         }
-    }
-}
-
-class AdminUser extends User {
-    private List<Pet> pets;
-    private List<AdoptionApplication> allApplications;
-
-    public AdminUser(String username, String password, String email) {
-        super(username, password, email);
-        this.pets = new ArrayList<>();
-        this.allApplications = new ArrayList<>();
-    }
-
-    public void addPet(Pet pet) {
-        pets.add(pet);
+        this.scanner = new Scanner(new InputStreamReader(new FlushingInputStream(in, out), charset));
     }
 
-    public void addApplication(AdoptionApplication application) {
-        allApplications.add(application);
+    private ScreenPager pager() {
+        return new ScreenPager(out, screen, scanner);
     }
 
-    public void reviewApplications() {
-        System.out.println("\n╔══════════════════════════════════╗");  
-        System.out.println("║   Pending Adoption Applications  ║");
-        System.out.println("╚══════════════════════════════════╝");
-        if (allApplications.isEmpty()) {
-            System.out.println("\n    == No pending applications == ");
-            return;
+    void run() {
+        try {
+            menuLoop();
+        } finally {
+            out.flush();
         }
-        
-        for (AdoptionApplication app : allApplications) {
-            if (app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING) {
-                String applicant = String.format("%-21s", app.getApplicant().getUsername());
-                String petName = String.format("%-21s", app.getPet().getName());
-                String species = String.format("%-21s", app.getPet().getSpecies());
-                String date = app.getApplicationDate().format(DateTimeFormatter.ISO_DATE);
-        
-                System.out.println("╔══════════════════════════════════╗");
-                System.out.println("║ Applicant: " + applicant + " ║");
-                System.out.println("║ Pet:       " + petName + " ║");
-                System.out.println("║ Species:   " + species + " ║");
-                System.out.println("║ Application Date: " + date + "     ║");
-                System.out.println("╚══════════════════════════════════╝");
-            }
-        }        
-    }
-
-    @Override
-    public void displayDashboard() {
-        System.out.println("\n╔══════════════════════════════════╗");
-        System.out.println("║         Admin Dashboard          ║");
-        System.out.println("╚══════════════════════════════════╝");
-        System.out.println("Welcome, " + getUsername());
-        System.out.println("Pets in System: " + pets.size());
-        System.out.println("Total Applications: " + allApplications.size());
     }
-}
-
-// Main Application Class
-public class PawfectMatch {
-    private static Scanner scanner = new Scanner(System.in);
-    private static List<RegularUser> regularUsers = new ArrayList<>();
-    private static List<AdminUser> adminUsers = new ArrayList<>();
-    private static List<Pet> availablePets = new ArrayList<>();
-    private static List<AdoptionApplication> applications = new ArrayList<>();
-
-    public static void main(String[] args) {
-        // Seed some initial data
-        seedInitialData();
 
+    private void menuLoop() {
         while (true) {
-            System.out.println("\n╔══════════════════════════════════╗");
-            System.out.println("║        - PAWFECT MATCH -         ║");
-            System.out.println("║      A Pet Adoption  System      ║");
-            System.out.println("╚══════════════════════════════════╝");    
-            System.out.println("1. Register (Create an Account)");
-            System.out.println("2. User Login");
-            System.out.println("3. Admin Login");
-            System.out.println("4. Exit");
-            System.out.print("Enter your choice: ");
+            out.print(ConsoleRenderer.WELCOME);
+            out.println("1. Register (Create an Account)");
+            out.println("2. User Login");
+            out.println("3. Admin Login");
+            out.println("4. Exit");
+            out.print("Enter your choice: ");
 
             try {
                 int choice = scanner.nextInt();
@@ -222,24 +200,86 @@ public class PawfectMatch {
                     case 2: userLogin(); break;
                     case 3: adminLogin(); break;
                     case 4: 
-                        System.out.println("\n\n=========================================================");
-                        System.out.println("=== Thank you for using Pet Adoption System. Goodbye! ===");
-                        System.out.println("=========================================================\n\n");
+                        out.println("\n\n=========================================================");
+                        out.println("=== Thank you for using Pet Adoption System. Goodbye! ===");
+                        out.println("=========================================================\n\n");
                         return;
                     default: 
-                        System.out.println("\n!! Invalid choice. Please try again !!\n");
+                        out.println("\n!! Invalid choice. Please try again !!\n");
                 }
             } catch (InputMismatchException e) {
-                System.out.println("\n!! Invalid input. Please enter a number !!\n");
+                out.println("\n!! Invalid input. Please enter a number !!\n");
                 scanner.nextLine(); 
             }
         }
     }
 
+    private static void startMetrics() {
+        Metrics.gauge("pets", "Pets in the catalog", () -> catalog.size());
+        Metrics.gauge("pets_available", "Pets available for adoption", () -> catalog.count(Pet.AdoptionStatus.AVAILABLE));
+        Metrics.gauge("pending_applications", "Pending applications", () -> engine.getStore().pendingCount());
+        Metrics.gauge("users", "Registered users", () -> users.getUsers().size());
+        Metrics.gauge("search_cache_entries", "Cached search results", () -> service.searchCache().size());
+        Metrics.gauge("search_cache_hit_percent", "Search cache hit rate (%)", () -> service.searchCache().hitPercent());
+        Metrics.section(stats::appendPrometheus);
+        Metrics.section(service.searchCache()::appendPrometheus);
+
+        // -Dpawfect.metrics.port serves /metrics, -Dpawfect.metrics.file rewrites a file every 15 seconds
+        String port = System.getProperty("pawfect.metrics.port");
+        if (port != null && !port.isEmpty()) {
+            try {
+                Metrics.serve(Integer.parseInt(port));
+            } catch (IOException | NumberFormatException e) {
+                System.out.println("\n!! Could not serve metrics on port " + port + ": " + e.getMessage() + " !!\n");
+            }
+        }
+        String file = System.getProperty("pawfect.metrics.file");
+        if (file != null && !file.isEmpty()) {
+            Thread writer = new Thread(() -> {
+                while (true) {
+                    try {
+                        Metrics.export(Paths.get(file));
+                        Thread.sleep(15_000);
+                    } catch (IOException e) {
+                        System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+                        return;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "pawfect-metrics-file");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private static void printImportResult(PrintStream out, PetImporter.Result result) {
+        out.println("Imported " + result.imported + " pets, rejected " + result.rejected);
+        for (String error : result.errors) {
+            out.println("  " + error);
+        }
+        if (result.rejected > result.errors.size()) {
+            out.println("  ...");
+        }
+    }
+
+    private static void closeStore() {
+        if (maintenance != null) {
+            maintenance.close();
+        }
+        Metrics.stop();
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println("\n!! Could not close saved data: " + e.getMessage() + " !!\n");
+        }
+    }
+
     private static void seedInitialData() {
         // Create an admin user
         AdminUser admin = new AdminUser("keil", "keilpogi123", "keil@gmail.com");
-        adminUsers.add(admin);
+        users.addAdmin(admin);
+        store.userRegistered(admin);
 
         // Create some pets
         Pet dog1 = new Pet("Bantay", "D001", "Dog", 3, "Aspin");
@@ -248,61 +288,67 @@ public class PawfectMatch {
         Pet cat2 = new Pet("Nina", "C002", "Cat", 3, "Persian");
         Pet dog3 = new Pet("Rex", "D003", "Dog", 5, "German Shepherd");
         
-        availablePets.add(dog1);
-        availablePets.add(cat1);
-        availablePets.add(dog2);
-        availablePets.add(cat2);
-        availablePets.add(dog3);
+        catalog.addPet(dog1);
+        catalog.addPet(cat1);
+        catalog.addPet(dog2);
+        catalog.addPet(cat2);
+        catalog.addPet(dog3);
         
         admin.addPet(dog1);
         admin.addPet(cat1);
         admin.addPet(dog2);
         admin.addPet(cat2);
         admin.addPet(dog3);
-        
+
+        for (Pet pet : Arrays.asList(dog1, cat1, dog2, cat2, dog3)) {
+            store.petAdded(pet, admin);
+        }
     }
 
-    private static void registerUser() {
-        System.out.print("Enter username: ");
+    private void registerUser() {
+        out.print("Enter username: ");
         String username = scanner.nextLine();
-        System.out.print("Enter password: ");
+        if (service.isUsernameTaken(username)) {
+            out.println("\n!! Username already taken. Please choose another !!\n");
+            return;
+        }
+        out.print("Enter password: ");
         String password = scanner.nextLine();
-        System.out.print("Enter email: ");
+        out.print("Enter email: ");
         String email = scanner.nextLine();
 
-        RegularUser newUser = new RegularUser(username, password, email);
-        regularUsers.add(newUser);
-        System.out.println("╔══════════════════════════════════╗");
-        System.out.println("║     Registration successful!     ║");
-        System.out.println("╚══════════════════════════════════╝");
+        if (service.register(username, password, email) == null) {
+            out.println("\n!! Username already taken. Please choose another !!\n");
+            return;
+        }
+        out.print(ConsoleRenderer.REGISTRATION_SUCCESSFUL);
     }
 
-    private static void userLogin() {
-        System.out.print("Enter username: ");
+    private void userLogin() {
+        out.print("Enter username: ");
         String username = scanner.nextLine();
-        System.out.print("Enter password: ");
+        out.print("Enter password: ");
         String password = scanner.nextLine();
 
-        for (RegularUser user : regularUsers) {
-            if (user.authenticate(username, password)) {
-                userMenu(user);
-                return;
-            }
+        RegularUser user = service.login(username, password);
+        if (user != null) {
+            userMenu(user);
+            return;
         }
-        System.out.println("\n!! Login failed. Invalid credentials !!\n");
+        out.println("\n!! Login failed. Invalid credentials !!\n");
     }
 
-    private static void userMenu(RegularUser user) {
+    private void userMenu(RegularUser user) {
         while (true) {
-            System.out.println("\n╔══════════════════════════════════╗");   
-            System.out.println("║            Main Menu             ║");
-            System.out.println("╚══════════════════════════════════╝");
-            System.out.println("1. View All Pets");
-            System.out.println("2. Search Pets by Filters");
-            System.out.println("3. Apply for Adoption");
-            System.out.println("4. View Your Adoption History");
-            System.out.println("5. Log Out");
-            System.out.print("Enter your choice: ");
+            out.print(ConsoleRenderer.MAIN_MENU);
+            out.println("1. View All Pets");
+            out.println("2. Search Pets by Filters");
+            out.println("3. Search Pets by Keyword");
+            out.println("4. Recommended Pets for You");
+            out.println("5. Apply for Adoption");
+            out.println("6. View Your Adoption History");
+            out.println("7. Log Out");
+            out.print("Enter your choice: ");
 
             try {
                 int choice = scanner.nextInt();
@@ -311,257 +357,397 @@ public class PawfectMatch {
                 switch (choice) {
                     case 1: viewAllPets(); break;
                     case 2: searchPets(); break;
-                    case 3: applyForAdoption(user); break;
-                    case 4: user.displayDashboard(); break;
-                    case 5: return;
+                    case 3: keywordSearch(); break;
+                    case 4: recommendPets(user); break;
+                    case 5: applyForAdoption(user); break;
+                    case 6: user.displayDashboard(pager()); break;
+                    case 7: return;
                     default: 
-                        System.out.println("\n!! Invalid choice. Please try again !!\n");
+                        out.println("\n!! Invalid choice. Please try again !!\n");
                 }
             } catch (InputMismatchException e) {
-                System.out.println("\n!! Invalid input. Please enter a number !!\n");
+                out.println("\n!! Invalid input. Please enter a number !!\n");
                 scanner.nextLine(); // Clear invalid input
             }
         }
     }
 
-    private static void adminLogin() {
-        System.out.print("Enter admin username: ");
+    private void adminLogin() {
+        out.print("Enter admin username: ");
         String username = scanner.nextLine();
-        System.out.print("Enter admin password: ");
+        out.print("Enter admin password: ");
         String password = scanner.nextLine();
 
-        for (AdminUser admin : adminUsers) {
-            if (admin.authenticate(username, password)) {
-                adminMenu(admin);
-                return;
-            }
+        AdminUser admin = service.loginAdmin(username, password);
+        if (admin != null) {
+            adminMenu(admin);
+            return;
         }
-        System.out.println("\n!! Login failed. Invalid credentials !!\n");
+        out.println("\n!! Login failed. Invalid credentials !!\n");
     }
 
-    private static void adminMenu(AdminUser admin) {
+    private void adminMenu(AdminUser admin) {
         while (true) {
-            System.out.println("\n╔══════════════════════════════════╗");
-            System.out.println("║           Admin Portal           ║");
-            System.out.println("╚══════════════════════════════════╝");
-            System.out.println("1. View All Pet Applications");
-            System.out.println("2. Approve/Reject Adoption Applications");
-            System.out.println("3. View All Pets");
-            System.out.println("4. Add New Pet");
-            System.out.println("5. Logout");
-            System.out.print("Enter your choice: ");
+            out.print(ConsoleRenderer.ADMIN_PORTAL);
+            out.println("1. View All Pet Applications");
+            out.println("2. Approve/Reject Adoption Applications");
+            out.println("3. View All Pets");
+            out.println("4. Add New Pet");
+            out.println("5. Import Pets from File");
+            out.println("6. Export Pets to File");
+            out.println("7. System Stats");
+            out.println("8. Manage Shelters");
+            out.println("9. Logout");
+            out.print("Enter your choice: ");
     
             try {
                 int choice = scanner.nextInt();
                 scanner.nextLine();
     
                 switch (choice) {
-                    case 1: admin.reviewApplications(); break;
+                    case 1: admin.reviewApplications(pager(), service.applications(admin)); break;
                     case 2: approveRejectApplications(admin); break;
                     case 3: viewAllPets(); break;
                     case 4: addNewPet(admin); break;
-                    case 5: return;
+                    case 5: importPetsFromFile(admin); break;
+                    case 6: exportPetsToFile(); break;
+                    case 7: systemStats(admin); break;
+                    case 8: manageShelters(); break;
+                    case 9: return;
                     default: 
-                        System.out.println("\n!! Invalid choice. Please try again !!\n");
+                        out.println("\n!! Invalid choice. Please try again !!\n");
                 }
             } catch (InputMismatchException e) {
-                System.out.println("\n!! Invalid input. Please enter a number !!\n");
+                out.println("\n!! Invalid input. Please enter a number !!\n");
                 scanner.nextLine();
             }
         }
     }
     
-    private static void addNewPet(AdminUser admin) {
-        System.out.println("╔══════════════════════════════════╗"); 
-        System.out.println("║            Add New Pet           ║");
-        System.out.println("╚══════════════════════════════════╝");
-        
-        // Generate a unique ID for the pet
-        String uniqueId = "P" + (availablePets.size() + 1);
+    private void addNewPet(AdminUser admin) {
+        out.print(ConsoleRenderer.ADD_NEW_PET);
         
         // Get pet details from admin
-        System.out.print("Enter Pet Name: ");
+        out.print("Enter Pet Name: ");
         String name = scanner.nextLine();
         
-        System.out.print("Enter Species (Dog/Cat/etc.): ");
+        out.print("Enter Species (Dog/Cat/etc.): ");
         String species = scanner.nextLine();
         
         int age;
         while (true) {
             try {
-                System.out.print("Enter Pet Age: ");
+                out.print("Enter Pet Age: ");
                 age = scanner.nextInt();
                 scanner.nextLine();
                 if (age >= 0) break;
-                System.out.println("\n!! Age must be a non-negative number !!\n");
+                out.println("\n!! Age must be a non-negative number !!\n");
             } catch (InputMismatchException e) {
-                System.out.println("\n!! Invalid input. Please enter a number !!\n");
+                out.println("\n!! Invalid input. Please enter a number !!\n");
                 scanner.nextLine();
             }
         }
         
-        System.out.print("Enter Breed: ");
+        out.print("Enter Breed: ");
         String breed = scanner.nextLine();
         
-        // Create new pet
-        Pet newPet = new Pet(name, uniqueId, species, age, breed);
-        
-        // Add to available pets list
-        availablePets.add(newPet);
-        
-        // Add to admin's pet list
-        admin.addPet(newPet);
+        // Goes to the admin's shelter under a fresh unique ID
+        Pet newPet = service.addPet(admin, name, species, age, breed);
         
-        System.out.println("\n=================================");
-        System.out.println("       Pet Added Successfully!");
-        System.out.println("=================================");
-        System.out.println("Pet Details:");
-        System.out.println("Name: " + name);
-        System.out.println("Species: " + species);
-        System.out.println("Age: " + age);
-        System.out.println("Breed: " + breed);
-        System.out.println("Unique ID: " + uniqueId);
+        out.println("\n=================================");
+        out.println("       Pet Added Successfully!");
+        out.println("=================================");
+        out.println("Pet Details:");
+        out.println("Name: " + name);
+        out.println("Species: " + species);
+        out.println("Age: " + age);
+        out.println("Breed: " + breed);
+        out.println("Unique ID: " + newPet.getUniqueId());
     }
 
-    private static void viewAllPets() {
-        System.out.println("\n╔══════════════════════════════════╗"); 
-        System.out.println("║       === Available Pets ===     ║");
-        System.out.println("╚══════════════════════════════════╝");
-        for (Pet pet : availablePets) {
-            if (pet.getStatus() == Pet.AdoptionStatus.AVAILABLE) {
-                System.out.println(pet);
+    private void importPetsFromFile(AdminUser admin) {
+        out.print("Enter the path of the CSV or JSON file to import: ");
+        String path = scanner.nextLine().trim();
+        try {
+            printImportResult(out, service.importPets(sessionFile(path), admin));
+        } catch (IOException | UncheckedIOException | java.nio.file.InvalidPathException e) {
+            out.println("\n!! Import failed: " + e.getMessage() + " !!\n");
+        }
+    }
+
+    // A path typed in a session; remote sessions may only name a file in the server's file directory
+    private Path sessionFile(String path) {
+        if (fileRoot == null) {
+            return Paths.get(path);
+        }
+        Path name = Paths.get(path);
+        if (name.getRoot() != null || name.getNameCount() != 1 || path.equals(".") || path.equals("..")) {
+            throw new java.nio.file.InvalidPathException(path, "remote sessions can only use a file name (files are kept in the server's "
+                + fileRoot.getFileName() + " directory)");
+        }
+        return fileRoot.resolve(name);
+    }
+
+    private void exportPetsToFile() {
+        out.print("Enter the path of the CSV or JSON file to export to: ");
+        String path = scanner.nextLine().trim();
+        try {
+            out.println(service.exportPets(sessionFile(path)) + " pets exported to " + path);
+        } catch (IOException | java.nio.file.InvalidPathException e) {
+            out.println("\n!! Export failed: " + e.getMessage() + " !!\n");
+        }
+    }
+
+    private void manageShelters() {
+        out.print(ConsoleRenderer.SHELTERS);
+        out.println(String.format("%-20s %8s %10s %8s  %s", "Shelter", "pets", "available", "pending", "admins"));
+        for (ShelterNetwork.Shelter shelter : catalog.getShelters()) {
+            StringBuilder admins = new StringBuilder();
+            for (AdminUser admin : users.getAdmins(shelter.name)) {
+                admins.append(admins.length() > 0 ? ", " : "").append(admin.getUsername());
             }
+            out.println(String.format("%-20s %8d %10d %8d  %s", shelter.name, shelter.pets.size(),
+                shelter.pets.count(Pet.AdoptionStatus.AVAILABLE), shelter.applications.pendingCount(), admins));
         }
+
+        out.print("\nEnter a new shelter name to add it (leave blank to go back): ");
+        String name = scanner.nextLine().trim();
+        if (name.isEmpty()) {
+            return;
+        }
+        if (!name.matches("[\\p{L}\\p{N} .'-]+")) {
+            out.println("\n!! Shelter names may only contain letters, digits, spaces and . ' - !!\n");
+            return;
+        }
+        if (!users.getAdmins(name).isEmpty()) {
+            out.println("\n!! That shelter already exists !!\n");
+            return;
+        }
+        out.print("Enter the new shelter admin's username: ");
+        String username = scanner.nextLine();
+        if (users.isUsernameTaken(username)) {
+            out.println("\n!! Username already taken. Please choose another !!\n");
+            return;
+        }
+        out.print("Enter password: ");
+        String password = scanner.nextLine();
+        out.print("Enter email: ");
+        String email = scanner.nextLine();
+
+        AdminUser admin = new AdminUser(username, password, email, name);
+        if (!users.addAdmin(admin)) {
+            out.println("\n!! Username already taken. Please choose another !!\n");
+            return;
+        }
+        try {
+            catalog.open(name);
+        } catch (IOException e) {
+            out.println("\n!! Could not open the shelter's pet store: " + e.getMessage() + " !!\n");
+        }
+        store.userRegistered(admin);
+        out.println("\nShelter " + name + " added with admin " + username);
     }
 
-    private static void searchPets() {
-        System.out.println("\n╔══════════════════════════════════╗");
-        System.out.println("║        === Search Pets ===       ║");
-        System.out.println("╚══════════════════════════════════╝");
+    private void systemStats(AdminUser admin) {
+        admin.displayDashboard(out, stats);
+        out.print(ConsoleRenderer.SYSTEM_STATS);
+        Metrics.printStats(out);
+        out.print("\nExport in Prometheus format to a file (leave blank to skip): ");
+        String path = scanner.nextLine().trim();
+        if (path.isEmpty()) {
+            return;
+        }
+        try {
+            Metrics.export(sessionFile(path));
+            out.println("Metrics exported to " + path);
+        } catch (IOException | java.nio.file.InvalidPathException e) {
+            out.println("\n!! Export failed: " + e.getMessage() + " !!\n");
+        }
+    }
+
+    // Fetches one screenful at a time, so the first one shows up however big the catalog is
+    private void viewAllPets() {
+        out.print(ConsoleRenderer.AVAILABLE_PETS);
+        ScreenPager pager = pager();
+        String cursor = null;
+        do {
+            Page<Pet> page = service.petPage(Pet.AdoptionStatus.AVAILABLE, PetOrder.ID, cursor, ScreenPager.PAGE_SIZE);
+            for (Pet pet : page.items) {
+                if (!pager.print(ConsoleRenderer.appendPet(pager.row(), pet))) {
+                    return;
+                }
+            }
+            cursor = page.next;
+        } while (cursor != null);
+    }
+
+    private void searchPets() {
+        out.print(ConsoleRenderer.SEARCH_PETS);
         
-        System.out.print("Enter species (or press Enter to skip): ");
+        out.print("Enter species (or press Enter to skip): ");
         String species = scanner.nextLine().trim();
         
         int maxAge;
         while (true) {
-            System.out.print("Enter max age (or 0 to skip): ");
+            out.print("Enter max age (or 0 to skip): ");
             try {
                 maxAge = scanner.nextInt();
                 scanner.nextLine(); // consume newline
                 break;
             } catch (InputMismatchException e) {
-                System.out.println("\n!! Invalid input. Please enter a number !!\n");
+                out.println("\n!! Invalid input. Please enter a number !!\n");
                 scanner.nextLine(); // clear invalid input
             }
         }
     
-        System.out.println("\n╔══════════════════════════════════╗");
-        System.out.println("║       === Search Results ===     ║");
-        System.out.println("╚══════════════════════════════════╝");
-        
-        boolean foundResults = false;
+        out.print(ConsoleRenderer.SEARCH_RESULTS);
         
-        for (Pet pet : availablePets) {
-            // Check for available pets
-            if (pet.getStatus() == Pet.AdoptionStatus.AVAILABLE) {
-                // Check species (ignore case, allow partial matches)
-                boolean speciesMatch = species.isEmpty() || 
-                    pet.getSpecies().toLowerCase().contains(species.toLowerCase());
-                
-                // Check age
-                boolean ageMatch = maxAge == 0 || pet.getAge() <= maxAge;
-                
-                if (speciesMatch && ageMatch) {
-                    System.out.println(pet);
-                    foundResults = true;
-                }
+        SearchCache.Listing results = service.searchListing(species, maxAge);
+        ScreenPager pager = pager();
+        for (int i = 0; i < results.pets.size(); i++) {
+            if (!pager.print(results.row(i))) {
+                break;
             }
         }
         
-        if (!foundResults) {
-            System.out.println("No pets found matching your search criteria.");
+        if (results.pets.isEmpty()) {
+            out.println("No pets found matching your search criteria.");
+        }
+    }
+
+    private void keywordSearch() {
+        out.print(ConsoleRenderer.SEARCH_PETS);
+        out.print("Enter keywords (name, species or breed): ");
+        String query = scanner.nextLine();
+
+        out.print(ConsoleRenderer.SEARCH_RESULTS);
+        List<Pet> results = service.keywordSearch(query, KEYWORD_RESULTS);
+        for (Pet pet : results) {
+            out.println(pet);
+        }
+        if (results.isEmpty()) {
+            out.println("No pets found matching your search criteria.");
+        }
+    }
+
+    private void recommendPets(RegularUser user) {
+        out.print("Preferred species (leave blank for any): ");
+        String species = scanner.nextLine();
+        out.print("Preferred age (leave blank for any): ");
+        String ageText = scanner.nextLine().trim();
+        int age = -1;
+        if (!ageText.isEmpty()) {
+            try {
+                age = Integer.parseInt(ageText);
+            } catch (NumberFormatException e) {
+                out.println("\n!! Invalid input. Please enter a number !!\n");
+                return;
+            }
+        }
+
+        out.print(ConsoleRenderer.RECOMMENDED_PETS);
+        List<Pet> results = service.recommend(user, species, age, RECOMMENDATIONS);
+        for (Pet pet : results) {
+            out.println(pet);
+        }
+        if (results.isEmpty()) {
+            out.println("No pets are available right now.");
         }
     }
 
-    private static void applyForAdoption(RegularUser user) {
+    private void applyForAdoption(RegularUser user) {
         viewAllPets();
-        System.out.print("\nEnter the name of the pet you want to adopt: ");
+        out.print("\nEnter the name of the pet you want to adopt: ");
         String petName = scanner.nextLine();
-    
-        for (Pet pet : availablePets) {
-            if (pet.getName().equalsIgnoreCase(petName) && 
-                pet.getStatus() == Pet.AdoptionStatus.AVAILABLE) {
-                // Create the adoption application
-                AdoptionApplication application = new AdoptionApplication(user, pet);
-                
-                // Add to the central applications list
-                applications.add(application);
-                
-                // Add to the user's personal applications
-                user.applyForAdoption(pet);
-
-                if (!adminUsers.isEmpty()) {
-                    AdminUser admin = adminUsers.get(0);
-                    admin.addApplication(application);
+
+        Pet pet = service.findAvailable(petName);
+
+        // no exact name: offer the closest matches (typos, partial names)
+        List<Pet> matches = pet == null ? service.keywordSearch(petName, SUGGESTIONS) : Collections.<Pet>emptyList();
+        if (!matches.isEmpty()) {
+            out.println("\nNo pet named \"" + petName + "\". Did you mean:");
+            for (int i = 0; i < matches.size(); i++) {
+                out.println((i + 1) + ". " + matches.get(i));
+            }
+            out.print("Select a pet number (0 to cancel): ");
+            try {
+                int choice = scanner.nextInt();
+                scanner.nextLine();
+                if (choice > 0 && choice <= matches.size()) {
+                    pet = matches.get(choice - 1);
+                } else {
+                    return;
                 }
-                System.out.println("\n=======================================================");
-                System.out.println("Adoption application submitted for " + pet.getName());
-                System.out.println("=======================================================");
+            } catch (InputMismatchException e) {
+                out.println("\n!! Invalid input. Please enter a number !!\n");
+                scanner.nextLine();
                 return;
             }
         }
-        System.out.println("\n!! Pet not found or not available for adoption !!\n");
+
+        // Create the adoption application (null if the pet was reserved meanwhile)
+        AdoptionApplication application = pet == null ? null : service.apply(user, pet);
+        if (application == null) {
+            out.println("\n!! Pet not found or not available for adoption !!\n");
+            return;
+        }
+        out.println("\n=======================================================");
+        out.println("Adoption application submitted for " + pet.getName());
+        out.println("=======================================================");
     }
 
-    private static void approveRejectApplications(AdminUser admin) {
-        admin.reviewApplications();
+    private void approveRejectApplications(AdminUser admin) {
+        ApplicationStore applications = service.applications(admin);
+        admin.reviewApplications(pager(), applications);
 
         // Check if there are any pending applications
-        boolean hasPendingApplications = applications.stream()
-            .anyMatch(app -> app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING);
-        
-        if (!hasPendingApplications) {
-            System.out.println("\n!! No pending applications to review !!\n");
+        if (!applications.hasPending()) {
+            out.println("\n!! No pending applications to review !!\n");
             return;
         }
 
-        System.out.println("\n===== Pending Applications =====");
-        applications.stream()
-            .filter(app -> app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING)
-            .forEach(app -> System.out.println(
-                "Applicant: " + app.getApplicant().getUsername() + 
-                " | Pet: " + app.getPet().getName() + 
-                " | Date: " + app.getApplicationDate()
-            ));
+        out.println("\n===== Pending Applications =====");
+        ScreenPager pager = pager();
+        String cursor = null;
+        listing:
+        do {
+            Page<AdoptionApplication> page = service.pendingPage(admin, cursor, ScreenPager.PAGE_SIZE);
+            for (AdoptionApplication app : page.items) {
+                if (!pager.print(
+                    "Applicant: " + app.getApplicant().getUsername() + 
+                    " | Pet: " + app.getPet().getName() + 
+                    " | Date: " + app.getApplicationDate()
+                )) {
+                    break listing;
+                }
+            }
+            cursor = page.next;
+        } while (cursor != null);
 
-        System.out.print("\nEnter the pet name or applicant username to review their application: ");
+        out.print("\nEnter the pet name or applicant username to review their application: ");
         String searchTerm = scanner.nextLine().trim();
 
-        List<AdoptionApplication> matchingApplications = applications.stream()
-            .filter(app -> app.getStatus() == AdoptionApplication.ApplicationStatus.PENDING &&
-                        (app.getPet().getName().equalsIgnoreCase(searchTerm) ||
-                            app.getApplicant().getUsername().equalsIgnoreCase(searchTerm)))
-            .collect(Collectors.toList());
+        List<AdoptionApplication> matchingApplications = applications.findPending(searchTerm);
 
         if (matchingApplications.isEmpty()) {
-            System.out.println("\n!! No pending applications found matching your search !!\n");
+            out.println("\n!! No pending applications found matching your search !!\n");
             return;
         }
 
         // If multiple matching applications, let admin choose
         AdoptionApplication selectedApplication;
         if (matchingApplications.size() > 1) {
-            System.out.println("\nMultiple matching applications found:");
+            out.println("\nMultiple matching applications found:");
             for (int i = 0; i < matchingApplications.size(); i++) {
                 AdoptionApplication app = matchingApplications.get(i);
-                System.out.println((i + 1) + ". Applicant: " + app.getApplicant().getUsername() + 
+                out.println((i + 1) + ". Applicant: " + app.getApplicant().getUsername() + 
                                 " | Pet: " + app.getPet().getName());
             }
             
             int choice;
             while (true) {
                 try {
-                    System.out.print("Select the application number: ");
+                    out.print("Select the application number: ");
                     choice = scanner.nextInt();
                     scanner.nextLine();
                     
@@ -569,10 +755,10 @@ public class PawfectMatch {
                         selectedApplication = matchingApplications.get(choice - 1);
                         break;
                     } else {
-                        System.out.println("\n!! Invalid selection. Please try again !!\n");
+                        out.println("\n!! Invalid selection. Please try again !!\n");
                     }
                 } catch (InputMismatchException e) {
-                    System.out.println("\n!! Invalid input. Please enter a number !!\n");
+                    out.println("\n!! Invalid input. Please enter a number !!\n");
                     scanner.nextLine();
                 }
             }
@@ -581,43 +767,52 @@ public class PawfectMatch {
         }
 
         // Display detailed application info
-        System.out.println("\n=============================================");
-        System.out.println("Application Details:");
-        System.out.println("Applicant: " + selectedApplication.getApplicant().getUsername());
-        System.out.println("Pet: " + selectedApplication.getPet().getName());
-        System.out.println("Species: " + selectedApplication.getPet().getSpecies());
-        System.out.println("Application Date: " + 
+        out.println("\n=============================================");
+        out.println("Application Details:");
+        out.println("Applicant: " + selectedApplication.getApplicant().getUsername());
+        out.println("Pet: " + selectedApplication.getPet().getName());
+        out.println("Species: " + selectedApplication.getPet().getSpecies());
+        out.println("Application Date: " + 
             selectedApplication.getApplicationDate().format(DateTimeFormatter.ISO_DATE));
         
         // Approval/Rejection process
-        System.out.println("\n1. Approve");
-        System.out.println("2. Reject");
-        System.out.print("Enter your choice: ");
+        out.println("\n1. Approve");
+        out.println("2. Reject");
+        out.print("Enter your choice: ");
         
         try {
             int choice = scanner.nextInt();
             scanner.nextLine();
 
             if (choice == 1) {
-                // Approve application
-                selectedApplication.setStatus(AdoptionApplication.ApplicationStatus.APPROVED);
-                selectedApplication.getPet().setStatus(Pet.AdoptionStatus.ADOPTED);
-                System.out.println("\n==============================================");
-                System.out.println("Application APPROVED for " + selectedApplication.getApplicant().getUsername() + 
+                // Approve application; other pending applications for the pet are rejected
+                AdoptionEngine.Decision decision = service.approve(selectedApplication);
+                if (!decision.approved) {
+                    out.println("\n!! Application was already decided or the pet is adopted !!\n");
+                    return;
+                }
+                out.println("\n==============================================");
+                out.println("Application APPROVED for " + selectedApplication.getApplicant().getUsername() + 
                                 " - Pet: " + selectedApplication.getPet().getName());
-                System.out.println("==============================================");
+                if (!decision.autoRejected.isEmpty()) {
+                    out.println(decision.autoRejected.size() + " other application(s) for this pet were rejected");
+                }
+                out.println("==============================================");
             } else if (choice == 2) {
                 // Reject application
-                selectedApplication.setStatus(AdoptionApplication.ApplicationStatus.REJECTED);
-                System.out.println("\n==============================================");
-                System.out.println("Application REJECTED for " + selectedApplication.getApplicant().getUsername() + 
+                if (!service.reject(selectedApplication)) {
+                    out.println("\n!! Application was already decided !!\n");
+                    return;
+                }
+                out.println("\n==============================================");
+                out.println("Application REJECTED for " + selectedApplication.getApplicant().getUsername() + 
                                 " - Pet: " + selectedApplication.getPet().getName());
-                System.out.println("==============================================");
+                out.println("==============================================");
             } else {
-                System.out.println("\n!! Invalid choice. No action taken !!\n");
+                out.println("\n!! Invalid choice. No action taken !!\n");
                 }
         }catch (InputMismatchException e) {
-            System.out.println("\n!! Invalid input. Please enter a number !!\n");
+            out.println("\n!! Invalid input. Please enter a number !!\n");
             scanner.nextLine();
         }
     }
@@ -0,0 +1,59 @@
+import java.util.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+
+// TCP server mode: each connection gets its own session thread running the console menus.
+// Uses a virtual thread per connection on JDK 21+, otherwise a cached platform thread pool.
+// Listens on loopback unless given an address, since the protocol is plain text; remote sessions
+// can only import and export files inside one directory.
+class PawfectServer {
+    static final int DEFAULT_PORT = 5050;
+
+    private final int port;
+    private final java.net.InetAddress address;
+    private final Path files;
+    private final java.util.concurrent.ExecutorService sessions;
+
+    PawfectServer(int port, java.net.InetAddress address, Path files) {
+        this.port = port;
+        this.address = address;
+        this.files = files;
+        this.sessions = newSessionExecutor();
+    }
+
+    private static java.util.concurrent.ExecutorService newSessionExecutor() {
+        try {
+            return (java.util.concurrent.ExecutorService) java.util.concurrent.Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return java.util.concurrent.Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "pawfect-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    void serve() throws IOException {
+        Files.createDirectories(files);
+        try (java.net.ServerSocket server = new java.net.ServerSocket(port, 1024, address)) {
+            System.out.println("Pawfect Match server listening on " + address.getHostAddress() + " port " + port
+                + ", session files in " + files.toAbsolutePath());
+            while (true) {
+                java.net.Socket socket = server.accept();
+                sessions.execute(() -> handle(socket));
+            }
+        }
+    }
+
+    // Anything but the client going away is a bug and is left to the thread's uncaught handler
+    private void handle(java.net.Socket socket) {
+        try (java.net.Socket client = socket) {
+            new PawfectMatch(client.getInputStream(), client.getOutputStream(), StandardCharsets.UTF_8, files).run();
+        } catch (IOException | NoSuchElementException e) {
+            // client disconnected mid-session: the socket failed or the Scanner ran out of input
+        }
+    }
+}
@@ -0,0 +1,780 @@
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Persists PawfectMatch state: every mutation goes to the event log, with periodic snapshots
+class PersistentStore implements Closeable {
+    static final byte USER_REGISTERED = 1;
+    static final byte ADMIN_ADDED = 2;
+    static final byte PET_ADDED = 3;
+    static final byte APPLICATION_FILED = 4;
+    static final byte APPLICATION_DECIDED = 5;
+    static final byte PET_IMPORTED = 6;   // PET_ADDED plus the pet's status; imports may bring adopted pets
+
+    private static final int SNAPSHOT_MAGIC = 0x50415746; // "PAWF"
+    private static final int SNAPSHOT_VERSION = 4;   // 2: shelter of every admin and pet, 3: filing/decision instants,
+                                                     // 4: checksummed chunks, varints and a string dictionary
+
+    // Version 4 layout: magic, version, checkpoint sequence and offset, then chunks of
+    //   [byte kind][int payload length][int crc32 of payload][payload]
+    // up to an END chunk. Species, breeds, shelters and pet owners are stored once in the
+    // dictionary chunk and referenced by varint code. Users, pets and applications come in
+    // chunks of CHUNK_RECORDS that are checked and decoded in parallel, then applied in file order.
+    private static final byte CHUNK_END = 0;
+    private static final byte CHUNK_DICTIONARY = 1;
+    private static final byte CHUNK_ADMINS = 2;
+    private static final byte CHUNK_USERS = 3;
+    private static final byte CHUNK_PETS = 4;
+    private static final byte CHUNK_APPLICATIONS = 5;
+    private static final int CHUNK_RECORDS = 16384;
+
+    private final Path dir;
+    private final UserRegistry users;
+    private final PetRepository catalog;
+    private final AdoptionEngine engine;
+    private final int snapshotEvery;
+    private final AtomicLong sinceSnapshot = new AtomicLong();
+    private final Map<Long, AdoptionApplication> restoredApplications = new HashMap<>();
+    private EventLog log;
+    private volatile boolean pipelined;
+    private volatile CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    PersistentStore(Path dir, UserRegistry users, PetRepository catalog, AdoptionEngine engine) {
+        this.dir = dir;
+        this.users = users;
+        this.catalog = catalog;
+        this.engine = engine;
+        this.snapshotEvery = Integer.getInteger("pawfect.snapshot.every", 10000);
+    }
+
+    // Loads the latest snapshot and replays the log tail; returns false when there was no saved data
+    public boolean restore() throws IOException {
+        Files.createDirectories(dir);
+        long[] checkpoint = {0, 0};
+        Path snapshot = dir.resolve("snapshot.bin");
+        if (Files.exists(snapshot)) {
+            checkpoint = readSnapshot(snapshot);
+        }
+        for (AdoptionApplication app : engine.getApplications()) {
+            restoredApplications.put(app.getId(), app);
+        }
+        // the log is compacted after every snapshot, so it is read from the start and the records
+        // the snapshot already holds are skipped by sequence; checkpoint[1] pointed into the log as
+        // it was before compaction
+        final long snapshotSeq = checkpoint[0];
+        log = EventLog.open(dir.resolve("events.log"), record -> {
+            if (record.seq > snapshotSeq) {
+                try {
+                    apply(record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        log.advanceSequence(snapshotSeq);
+        engine.reconcile();
+        restoredApplications.clear();
+        return users.getAdmins().size() + users.userCount() + catalog.size() > 0;
+    }
+
+    public void userRegistered(User user) {
+        append(user instanceof AdminUser ? ADMIN_ADDED : USER_REGISTERED, out -> {
+            writeUser(out, user);
+            if (user instanceof AdminUser) {
+                out.writeUTF(((AdminUser) user).getShelter());
+            }
+        });
+    }
+
+    // Pets go to their admin's shelter (the default shelter when there is no admin)
+    public void petAdded(Pet pet, AdminUser admin) {
+        append(PET_ADDED, out -> {
+            writePet(out, pet);
+            out.writeUTF(admin == null ? "" : admin.getUsername());
+            out.writeUTF(ShelterNetwork.of(admin));
+        });
+    }
+
+    // Bulk variant for imports: one group commit for the whole batch
+    public void petsAdded(List<Pet> pets, AdminUser admin) {
+        if (log == null || pets.isEmpty()) {
+            return;
+        }
+        List<byte[]> payloads = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            payloads.add(encode(out -> {
+                writePet(out, pet);
+                out.writeUTF(admin == null ? "" : admin.getUsername());
+                out.writeUTF(ShelterNetwork.of(admin));
+                out.writeByte(pet.getStatus().ordinal());
+            }));
+        }
+        written(log.enqueue(PET_IMPORTED, payloads));
+        countTowardsSnapshot(pets.size());
+    }
+
+    public void applicationFiled(AdoptionApplication app) {
+        append(APPLICATION_FILED, out -> writeApplication(out, app));
+    }
+
+    public void applicationDecided(AdoptionApplication app) {
+        append(APPLICATION_DECIDED, out -> {
+            out.writeLong(app.getId());
+            out.writeByte(app.getStatus().ordinal());
+            writeInstant(out, app.getDecidedAt());
+        });
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void append(byte type, Encoder encoder) {
+        if (log == null) {
+            return;
+        }
+        written(log.enqueue(type, Collections.singletonList(encode(encoder))));
+        countTowardsSnapshot(1);
+    }
+
+    // Pipelined (batch mode): mutations return as soon as their events are queued, and callers
+    // wait on lastWrite() when they need durability. Otherwise every mutation waits for its fsync.
+    void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    CompletableFuture<Void> lastWrite() {
+        return lastWrite;
+    }
+
+    private void written(CompletableFuture<Void> write) {
+        lastWrite = write;
+        if (!pipelined) {
+            EventLog.await(write);
+        }
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            encoder.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void countTowardsSnapshot(int records) {
+        if (sinceSnapshot.addAndGet(records) >= snapshotEvery) {
+            sinceSnapshot.set(0);
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                System.err.println("!! Snapshot failed: " + e.getMessage() + " !!");
+            }
+        }
+    }
+
+    // Replay is idempotent: the snapshot may already contain mutations logged after its checkpoint
+    private void apply(EventLog.Record record) throws IOException {
+        DataInputStream in = record.in();
+        switch (record.type) {
+            case USER_REGISTERED:
+                users.registerUser((RegularUser) readUser(in, false, false));
+                break;
+            case ADMIN_ADDED:
+                users.addAdmin((AdminUser) readUser(in, true, true));
+                break;
+            case PET_ADDED:
+            case PET_IMPORTED: {
+                Pet pet = readPet(in);
+                AdminUser owner = users.getAdmin(in.readUTF());
+                boolean added = catalog.addPet(pet, in.available() > 0 ? in.readUTF() : ShelterNetwork.of(owner));
+                Pet stored = catalog.getPet(pet.getUniqueId());
+                if (record.type == PET_IMPORTED) {
+                    Pet.AdoptionStatus status = Pet.AdoptionStatus.values()[in.readByte()];
+                    if (added && status != Pet.AdoptionStatus.AVAILABLE) {
+                        stored.setStatus(status);   // only on first add: the snapshot may hold a later status
+                    }
+                }
+                attribute(stored, owner);
+                break;
+            }
+            case APPLICATION_FILED:
+                readApplication(in, true);
+                break;
+            case APPLICATION_DECIDED: {
+                AdoptionApplication app = restoredApplications.get(in.readLong());
+                AdoptionApplication.ApplicationStatus status = AdoptionApplication.ApplicationStatus.values()[in.readByte()];
+                Instant decidedAt = in.available() > 0 ? readInstant(in) : null;
+                if (app != null) {
+                    app.setStatus(status, decidedAt);
+                    if (status == AdoptionApplication.ApplicationStatus.APPROVED) {
+                        app.getPet().setStatus(Pet.AdoptionStatus.ADOPTED);
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown event type " + record.type);
+        }
+    }
+
+    public synchronized void writeSnapshot() throws IOException {
+        long[] checkpoint = log.checkpoint();
+        List<AdminUser> admins = new ArrayList<>(users.getAdmins());
+        List<RegularUser> regulars = new ArrayList<>(users.getUsers());
+        Map<String, String> owners = new HashMap<>();
+        for (AdminUser admin : admins) {
+            for (String id : new ArrayList<>(admin.getPetIds())) {
+                owners.put(id, admin.getUsername());
+            }
+        }
+        List<Pet> pets = new ArrayList<>(catalog.size());
+        for (Pet pet : catalog.getAllPets()) {
+            pets.add(pet);
+        }
+        List<AdoptionApplication> apps = engine.getApplications();
+
+        // code 0 is the empty string (no owner)
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        dictionary.put("", 0);
+        int[] petCodes = new int[4 * pets.size()];    // species, breed, owner, shelter
+        for (int i = 0; i < pets.size(); i++) {
+            Pet pet = pets.get(i);
+            petCodes[4 * i] = code(dictionary, pet.getSpecies());
+            petCodes[4 * i + 1] = code(dictionary, pet.getBreed());
+            petCodes[4 * i + 2] = code(dictionary, owners.getOrDefault(pet.getUniqueId(), ""));
+            petCodes[4 * i + 3] = code(dictionary, catalog.shelterOf(pet.getUniqueId()));
+        }
+        for (AdminUser admin : admins) {
+            code(dictionary, admin.getShelter());
+        }
+
+        Path tmp = dir.resolve("snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(24);
+            header.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(checkpoint[0]).putLong(checkpoint[1]).flip();
+            writeFully(channel, header);
+
+            ChunkBuffer chunk = new ChunkBuffer();
+            chunk.varint(dictionary.size());
+            for (String word : dictionary.keySet()) {
+                chunk.string(word);
+            }
+            chunk.writeTo(channel, CHUNK_DICTIONARY);
+            chunk.varint(admins.size());
+            for (AdminUser admin : admins) {
+                chunk.user(admin);
+                chunk.varint(dictionary.get(admin.getShelter()));
+            }
+            chunk.writeTo(channel, CHUNK_ADMINS);
+            for (int from = 0; from < regulars.size(); from += CHUNK_RECORDS) {
+                int to = Math.min(regulars.size(), from + CHUNK_RECORDS);
+                chunk.varint(to - from);
+                for (RegularUser user : regulars.subList(from, to)) {
+                    chunk.user(user);
+                }
+                chunk.writeTo(channel, CHUNK_USERS);
+            }
+            for (int from = 0; from < pets.size(); from += CHUNK_RECORDS) {
+                int to = Math.min(pets.size(), from + CHUNK_RECORDS);
+                chunk.varint(to - from);
+                for (int i = from; i < to; i++) {
+                    Pet pet = pets.get(i);
+                    chunk.string(pet.getUniqueId());
+                    chunk.string(pet.getName());
+                    chunk.varint(petCodes[4 * i]);
+                    chunk.varint(pet.getAge());
+                    chunk.varint(petCodes[4 * i + 1]);
+                    chunk.write(pet.getStatus().ordinal());
+                    chunk.varint(petCodes[4 * i + 2]);
+                    chunk.varint(petCodes[4 * i + 3]);
+                }
+                chunk.writeTo(channel, CHUNK_PETS);
+            }
+            for (int from = 0; from < apps.size(); from += CHUNK_RECORDS) {
+                int to = Math.min(apps.size(), from + CHUNK_RECORDS);
+                chunk.varint(to - from);
+                for (AdoptionApplication app : apps.subList(from, to)) {
+                    chunk.varint(app.getId());
+                    chunk.string(app.getApplicant().getUsername());
+                    chunk.string(app.getPet().getUniqueId());
+                    chunk.varint(app.getFiledAt().toEpochMilli());
+                    chunk.write(app.getStatus().ordinal());
+                    chunk.varint(app.getDecidedAt() == null ? 0 : app.getDecidedAt().toEpochMilli() + 1);   // 0: undecided
+                }
+                chunk.writeTo(channel, CHUNK_APPLICATIONS);
+            }
+            chunk.writeTo(channel, CHUNK_END);
+        }
+        Files.move(tmp, dir.resolve("snapshot.bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.compact(checkpoint[1]);
+    }
+
+    private static int code(Map<String, Integer> dictionary, String word) {
+        Integer code = dictionary.get(word);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.put(word, code);
+        }
+        return code;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Payload of one snapshot chunk; writeTo frames it and starts the next chunk
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+        ChunkBuffer() {
+            super(1 << 20);
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void string(String value) {
+            bytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void bytes(byte[] value) {
+            varint(value.length);
+            write(value, 0, value.length);
+        }
+
+        void user(User user) {
+            PasswordHasher.Credential credential = user.getCredential();
+            string(user.getUsername());
+            string(user.getEmail());
+            varint(credential.iterations);
+            bytes(credential.salt);
+            bytes(credential.hash);
+        }
+
+        void writeTo(FileChannel channel, byte kind) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(buf, 0, count);
+            ByteBuffer header = ByteBuffer.allocate(9);
+            header.put(kind).putInt(count).putInt((int) crc.getValue()).flip();
+            writeFully(channel, header);
+            writeFully(channel, ByteBuffer.wrap(buf, 0, count));
+            reset();
+        }
+    }
+
+    // Reader for one version 4 chunk, positioned on its payload
+    private static class ChunkReader {
+        final byte kind;
+        final ByteBuffer in;
+        private byte[] scratch = new byte[64];
+
+        ChunkReader(byte kind, ByteBuffer in) {
+            this.kind = kind;
+            this.in = in;
+        }
+
+        void verify(int expectedCrc, int index) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(in.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Snapshot chunk " + index + " is corrupt");
+            }
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        int count() { return (int) varint(); }
+
+        String string() {
+            int length = count();
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, 2 * scratch.length)];
+            }
+            in.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes() {
+            byte[] value = new byte[count()];
+            in.get(value);
+            return value;
+        }
+
+        PasswordHasher.Credential credential() {
+            int iterations = count();
+            byte[] salt = bytes();
+            return new PasswordHasher.Credential(salt, bytes(), iterations);
+        }
+    }
+
+    // One decoded pet chunk; codes are resolved against the dictionary
+    private static class PetChunk {
+        final Pet[] pets;
+        final String[] owners;
+        final String[] shelters;
+
+        PetChunk(int size) {
+            pets = new Pet[size];
+            owners = new String[size];
+            shelters = new String[size];
+        }
+    }
+
+    private static class ApplicationRecord {
+        long id;
+        String applicant;
+        String petId;
+        Instant filedAt;
+        AdoptionApplication.ApplicationStatus status;
+        Instant decidedAt;
+    }
+
+    private long[] readSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            header.flip();
+            if (header.remaining() == 8 && header.getInt() == SNAPSHOT_MAGIC && header.getInt() == SNAPSHOT_VERSION) {
+                return readChunkedSnapshot(channel);
+            }
+        }
+        return readStreamSnapshot(file);
+    }
+
+    private long[] readChunkedSnapshot(FileChannel channel) throws IOException {
+        // read into the heap rather than mapping: a mapping outlives close() until it is garbage
+        // collected, and on Windows that blocks the snapshot.tmp -> snapshot.bin replace
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot is too large to load");
+        }
+        ByteBuffer file = ByteBuffer.allocate((int) channel.size());
+        channel.position(0);
+        while (file.hasRemaining() && channel.read(file) >= 0) {
+            // keep reading
+        }
+        file.flip();
+        file.position(8);
+        long[] checkpoint = {file.getLong(), file.getLong()};
+        List<ChunkReader> chunks = new ArrayList<>();
+        List<Integer> crcs = new ArrayList<>();
+        boolean ended = false;
+        while (!ended && file.remaining() >= 9) {
+            byte kind = file.get();
+            int length = file.getInt();
+            int crc = file.getInt();
+            if (length < 0 || length > file.remaining()) {
+                break;
+            }
+            ByteBuffer payload = file.slice();
+            payload.limit(length);
+            file.position(file.position() + length);
+            chunks.add(new ChunkReader(kind, payload));
+            crcs.add(crc);
+            ended = kind == CHUNK_END;
+        }
+        if (!ended) {
+            throw new IOException("Snapshot is truncated");
+        }
+
+        // check every chunk and decode the record chunks in parallel; applying them stays in file order
+        ChunkReader first = chunks.get(0);
+        first.verify(crcs.get(0), 0);
+        String[] dictionary = new String[first.kind == CHUNK_DICTIONARY ? first.count() : 0];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = first.string();
+        }
+        List<Object> decoded;
+        try {
+            decoded = java.util.stream.IntStream.range(1, chunks.size()).parallel().mapToObj(i -> {
+                try {
+                    chunks.get(i).verify(crcs.get(i), i);
+                    return decode(chunks.get(i), dictionary);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    throw new UncheckedIOException(new IOException("Snapshot chunk " + i + " is unreadable", e));
+                }
+            }).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        for (Object records : decoded) {
+            if (records instanceof AdminUser[]) {
+                for (AdminUser admin : (AdminUser[]) records) {
+                    users.addAdmin(admin);
+                }
+            } else if (records instanceof RegularUser[]) {
+                for (RegularUser user : (RegularUser[]) records) {
+                    users.registerUser(user);
+                }
+            } else if (records instanceof PetChunk) {
+                restorePets((PetChunk) records);
+            } else if (records instanceof ApplicationRecord[]) {
+                for (ApplicationRecord record : (ApplicationRecord[]) records) {
+                    AdoptionApplication app = restoreApplication(record.id, users.getUser(record.applicant),
+                        catalog.getPet(record.petId), record.filedAt);
+                    if (app != null) {
+                        app.setStatus(record.status, record.decidedAt);
+                    }
+                }
+            }
+        }
+        return checkpoint;
+    }
+
+    private static Object decode(ChunkReader in, String[] dictionary) {
+        switch (in.kind) {
+            case CHUNK_ADMINS: {
+                AdminUser[] admins = new AdminUser[in.count()];
+                for (int i = 0; i < admins.length; i++) {
+                    String username = in.string();
+                    String email = in.string();
+                    PasswordHasher.Credential credential = in.credential();
+                    admins[i] = new AdminUser(username, credential, email, dictionary[in.count()]);
+                }
+                return admins;
+            }
+            case CHUNK_USERS: {
+                RegularUser[] regulars = new RegularUser[in.count()];
+                for (int i = 0; i < regulars.length; i++) {
+                    String username = in.string();
+                    String email = in.string();
+                    regulars[i] = new RegularUser(username, in.credential(), email);
+                }
+                return regulars;
+            }
+            case CHUNK_PETS: {
+                PetChunk chunk = new PetChunk(in.count());
+                for (int i = 0; i < chunk.pets.length; i++) {
+                    String id = in.string();
+                    String name = in.string();
+                    String species = dictionary[in.count()];
+                    int age = in.count();
+                    Pet pet = new Pet(name, id, species, age, dictionary[in.count()]);
+                    Pet.AdoptionStatus status = Pet.AdoptionStatus.values()[in.in.get()];
+                    if (status != Pet.AdoptionStatus.AVAILABLE) {
+                        pet.setStatus(status);
+                    }
+                    chunk.pets[i] = pet;
+                    chunk.owners[i] = dictionary[in.count()];
+                    chunk.shelters[i] = dictionary[in.count()];
+                }
+                return chunk;
+            }
+            case CHUNK_APPLICATIONS: {
+                ApplicationRecord[] records = new ApplicationRecord[in.count()];
+                for (int i = 0; i < records.length; i++) {
+                    ApplicationRecord record = new ApplicationRecord();
+                    record.id = in.varint();
+                    record.applicant = in.string();
+                    record.petId = in.string();
+                    record.filedAt = Instant.ofEpochMilli(in.varint());
+                    record.status = AdoptionApplication.ApplicationStatus.values()[in.in.get()];
+                    long decided = in.varint();
+                    record.decidedAt = decided == 0 ? null : Instant.ofEpochMilli(decided - 1);
+                    records[i] = record;
+                }
+                return records;
+            }
+            default:
+                return null;    // dictionary (already read), end, or a kind added by a later version
+        }
+    }
+
+    // Adds runs of pets that share a shelter in one batch each
+    private void restorePets(PetChunk chunk) {
+        int from = 0;
+        while (from < chunk.pets.length) {
+            int to = from + 1;
+            while (to < chunk.pets.length && chunk.shelters[to].equals(chunk.shelters[from])) {
+                to++;
+            }
+            List<Pet> run = Arrays.asList(chunk.pets).subList(from, to);
+            boolean allAdded = catalog.addPets(run, chunk.shelters[from]).size() == run.size();
+            for (int i = from; i < to; i++) {
+                Pet pet = chunk.pets[i];
+                Pet stored = allAdded ? pet : catalog.getPet(pet.getUniqueId());
+                if (stored != pet && stored != null && stored.getStatus() != pet.getStatus()) {
+                    stored.setStatus(pet.getStatus());   // the pet was already in a mapped store
+                }
+                if (!chunk.owners[i].isEmpty() && stored != null) {
+                    attribute(stored, users.getAdmin(chunk.owners[i]));
+                }
+            }
+            from = to;
+        }
+    }
+
+    // Versions 1 to 3: one DataOutputStream record after another
+    private long[] readStreamSnapshot(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > 3) {
+                throw new IOException("Unsupported snapshot format: " + file);
+            }
+            boolean shelters = version >= 2;
+            long[] checkpoint = {in.readLong(), in.readLong()};
+            for (int i = in.readInt(); i > 0; i--) {
+                users.addAdmin((AdminUser) readUser(in, true, shelters));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                users.registerUser((RegularUser) readUser(in, false, false));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                Pet pet = readPet(in);
+                Pet.AdoptionStatus status = Pet.AdoptionStatus.values()[in.readByte()];
+                AdminUser owner = users.getAdmin(in.readUTF());
+                catalog.addPet(pet, shelters ? in.readUTF() : ShelterNetwork.of(owner));
+                catalog.getPet(pet.getUniqueId()).setStatus(status);
+                attribute(catalog.getPet(pet.getUniqueId()), owner);
+            }
+            boolean instants = version >= 3;
+            for (int i = in.readInt(); i > 0; i--) {
+                AdoptionApplication app = readApplication(in, instants);
+                AdoptionApplication.ApplicationStatus status = AdoptionApplication.ApplicationStatus.values()[in.readByte()];
+                Instant decidedAt = instants ? readInstant(in) : null;
+                if (app != null) {
+                    app.setStatus(status, decidedAt);
+                }
+            }
+            return checkpoint;
+        }
+    }
+
+    private static void attribute(Pet stored, AdminUser admin) {
+        if (admin != null) {
+            admin.addPet(stored);
+        }
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        PasswordHasher.Credential credential = user.getCredential();
+        out.writeUTF(user.getUsername());
+        out.writeUTF(user.getEmail());
+        out.writeInt(credential.iterations);
+        out.writeByte(credential.salt.length);
+        out.write(credential.salt);
+        out.writeByte(credential.hash.length);
+        out.write(credential.hash);
+    }
+
+    // withShelter: an admin's shelter follows the credential (absent in records written before shelters)
+    private static User readUser(DataInputStream in, boolean admin, boolean withShelter) throws IOException {
+        String username = in.readUTF();
+        String email = in.readUTF();
+        int iterations = in.readInt();
+        byte[] salt = new byte[in.readUnsignedByte()];
+        in.readFully(salt);
+        byte[] hash = new byte[in.readUnsignedByte()];
+        in.readFully(hash);
+        PasswordHasher.Credential credential = new PasswordHasher.Credential(salt, hash, iterations);
+        if (!admin) {
+            return new RegularUser(username, credential, email);
+        }
+        return new AdminUser(username, credential, email, withShelter && in.available() > 0 ? in.readUTF() : ShelterNetwork.DEFAULT);
+    }
+
+    private static void writePet(DataOutputStream out, Pet pet) throws IOException {
+        out.writeUTF(pet.getUniqueId());
+        out.writeUTF(pet.getName());
+        out.writeUTF(pet.getSpecies());
+        out.writeInt(pet.getAge());
+        out.writeUTF(pet.getBreed());
+    }
+
+    private static Pet readPet(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        String name = in.readUTF();
+        String species = in.readUTF();
+        int age = in.readInt();
+        return new Pet(name, id, species, age, in.readUTF());
+    }
+
+    private static void writeApplication(DataOutputStream out, AdoptionApplication app) throws IOException {
+        out.writeLong(app.getId());
+        out.writeUTF(app.getApplicant().getUsername());
+        out.writeUTF(app.getPet().getUniqueId());
+        out.writeLong(app.getApplicationDate().toEpochDay());
+        writeInstant(out, app.getFiledAt());
+    }
+
+    // Instants as epoch milliseconds, -1 for none
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeLong(instant == null ? -1 : instant.toEpochMilli());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        long millis = in.readLong();
+        return millis < 0 ? null : Instant.ofEpochMilli(millis);
+    }
+
+    // Rebuilds an application the same way PawfectMatch.applyForAdoption files it.
+    // withInstant: the filing instant follows the date (absent in records written before it existed)
+    private AdoptionApplication readApplication(DataInputStream in, boolean withInstant) throws IOException {
+        long id = in.readLong();
+        RegularUser user = users.getUser(in.readUTF());
+        Pet pet = catalog.getPet(in.readUTF());
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        Instant filedAt = withInstant && in.available() > 0 ? readInstant(in) : null;
+        if (filedAt == null) {
+            filedAt = date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+        return restoreApplication(id, user, pet, filedAt);
+    }
+
+    private AdoptionApplication restoreApplication(long id, RegularUser user, Pet pet, Instant filedAt) {
+        if (user == null || pet == null || restoredApplications.containsKey(id)) {
+            return null;
+        }
+        AdoptionApplication app = new AdoptionApplication(id, user, pet, filedAt, AdoptionApplication.ApplicationStatus.PENDING);
+        engine.restore(app);
+        restoredApplications.put(id, app);
+        AdminUser admin = users.primaryAdmin(catalog.shelterOf(pet.getUniqueId()));
+        if (admin != null) {
+            admin.addApplication(app);
+        }
+        return app;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+        catalog.close();
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+// encapsulation  / inheritance
+class Pet extends Being {
+    // status and version share one word (version << 8 | status) so a transition is a single CAS
+    private static final AtomicLongFieldUpdater<Pet> STATE = AtomicLongFieldUpdater.newUpdater(Pet.class, "state");
+
+    private final int species;   // Vocabulary.SPECIES code
+    private int age;
+    private final int breed;     // Vocabulary.BREEDS code
+    private volatile long state;
+    PetCatalog catalog; // set when the pet is added to a catalog
+
+    // AVAILABLE -> PENDING (reserved by an application) -> ADOPTED, or back to AVAILABLE when released
+    public enum AdoptionStatus {
+        AVAILABLE, PENDING, ADOPTED;
+
+        boolean canBecome(AdoptionStatus next) {
+            return this == AVAILABLE ? next == PENDING : this == PENDING && next != PENDING;
+        }
+    }
+
+    public Pet(String name, String uniqueId, String species, int age, String breed) {
+        this(name, uniqueId, Vocabulary.SPECIES.code(species), age, Vocabulary.BREEDS.code(breed));
+    }
+
+    Pet(String name, String uniqueId, int speciesCode, int age, int breedCode) {
+        super(name, uniqueId);
+        this.species = speciesCode;
+        this.age = age;
+        this.breed = breedCode;
+        this.state = AdoptionStatus.AVAILABLE.ordinal();
+    }
+
+    // Getters and setters
+    public String getSpecies() { return Vocabulary.SPECIES.name(getSpeciesCode()); }
+    public int getAge() { return age; }
+    public String getBreed() { return Vocabulary.BREEDS.name(getBreedCode()); }
+    int getSpeciesCode() { return species; }
+    int getBreedCode() { return breed; }
+    public AdoptionStatus getStatus() { return AdoptionStatus.values()[(int) (state & 0xFF)]; }
+    public long getVersion() { return state >>> 8; }
+
+    // Unconditional, for restores, imports and other admin corrections
+    public void setStatus(AdoptionStatus status) {
+        long current;
+        do {
+            current = state;
+        } while (!STATE.compareAndSet(this, current, next(current, status)));
+        changed(AdoptionStatus.values()[(int) (current & 0xFF)], status);
+    }
+
+    // Moves the pet along the state machine only if it is still in the expected status;
+    // false means another thread got there first
+    public boolean transition(AdoptionStatus expected, AdoptionStatus status) {
+        if (!expected.canBecome(status)) {
+            throw new IllegalStateException("Pet cannot go from " + expected + " to " + status);
+        }
+        long current;
+        do {
+            current = state;
+            if ((current & 0xFF) != expected.ordinal()) {
+                return false;
+            }
+        } while (!STATE.compareAndSet(this, current, next(current, status)));
+        changed(expected, status);
+        return true;
+    }
+
+    private static long next(long current, AdoptionStatus status) {
+        return ((current >>> 8) + 1) << 8 | status.ordinal();
+    }
+
+    private void changed(AdoptionStatus old, AdoptionStatus status) {
+        if (catalog != null && old != status) {
+            catalog.statusChanged(this, old);   // keep the status index in sync
+        }
+    }
+
+    @Override
+    public String toString() {
+        return ConsoleRenderer.appendPet(new StringBuilder(96), this).toString();
+    }
+}
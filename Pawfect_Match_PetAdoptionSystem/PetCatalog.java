@@ -0,0 +1,295 @@
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Pet catalog with secondary indexes so searches don't rescan every pet
+class PetCatalog implements PetRepository {
+    // Pets sorted by id in a plain array. Pets arriving in id order (generated ids, restores) are
+    // appended and a batch is sorted once and merged in, so there are no per-pet tree nodes;
+    // only a single pet added out of order shifts the tail.
+    private static final class SortedPets {
+        private Pet[] pets = new Pet[8];
+        private int size;
+
+        int size() { return size; }
+        Pet get(int i) { return pets[i]; }
+
+        void add(Pet pet) {
+            int at = size == 0 || PetOrder.ID.compare(pets[size - 1], pet) < 0 ? size : after(pet);
+            ensure(size + 1);
+            System.arraycopy(pets, at, pets, at + 1, size - at);
+            pets[at] = pet;
+            size++;
+        }
+
+        // batch is sorted by id
+        void addAll(List<Pet> batch) {
+            int m = batch.size();
+            ensure(size + m);
+            int i = size - 1;
+            int j = m - 1;
+            for (int k = size + m - 1; j >= 0; k--) {
+                pets[k] = i >= 0 && PetOrder.ID.compare(pets[i], batch.get(j)) > 0 ? pets[i--] : batch.get(j--);
+            }
+            size += m;
+        }
+
+        // Index of the first pet whose id sorts after the probe's
+        int after(Pet probe) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (PetOrder.ID.compare(pets[mid], probe) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void ensure(int capacity) {
+            if (capacity > pets.length) {
+                pets = Arrays.copyOf(pets, Math.max(capacity, pets.length * 2));
+            }
+        }
+    }
+
+    private final Map<String, Pet> petsById = new LinkedHashMap<>();
+    private final EnumMap<Pet.AdoptionStatus, Set<String>> statusIndex = new EnumMap<>(Pet.AdoptionStatus.class);
+    private final List<Set<String>> speciesIndex = new ArrayList<>();   // by Vocabulary.SPECIES code
+    private final List<Set<String>> breedIndex = new ArrayList<>();     // by Vocabulary.BREEDS code
+    private final Map<String, Set<String>> nameIndex = new HashMap<>(); // by normalized name
+    private final TreeMap<Integer, SortedPets> ageIndex = new TreeMap<>();
+    private final SortedPets idOrder = new SortedPets();
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    public PetCatalog() {
+        for (Pet.AdoptionStatus status : Pet.AdoptionStatus.values()) {
+            statusIndex.put(status, new LinkedHashSet<>());
+        }
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public synchronized boolean addPet(Pet pet) {
+        if (!index(pet)) {
+            return false;
+        }
+        idOrder.add(pet);
+        ageIndex.computeIfAbsent(pet.getAge(), k -> new SortedPets()).add(pet);
+        return true;
+    }
+
+    // Everything but the sorted indexes, which addPet and addPets fill in their own way
+    private boolean index(Pet pet) {
+        String id = pet.getUniqueId();
+        if (petsById.containsKey(id)) {
+            return false;
+        }
+        petsById.put(id, pet);
+        statusIndex.get(pet.getStatus()).add(id);
+        slot(speciesIndex, pet.getSpeciesCode()).add(id);
+        slot(breedIndex, pet.getBreedCode()).add(id);
+        nameIndex.computeIfAbsent(normalize(pet.getName()), k -> new LinkedHashSet<>()).add(id);
+        pet.catalog = this;
+        for (CatalogListener listener : listeners) {
+            listener.petAdded(pet);
+        }
+        return true;
+    }
+
+    private static Set<String> slot(List<Set<String>> index, int code) {
+        while (index.size() <= code) {
+            index.add(null);
+        }
+        Set<String> ids = index.get(code);
+        if (ids == null) {
+            ids = new LinkedHashSet<>();
+            index.set(code, ids);
+        }
+        return ids;
+    }
+
+    @Override
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public synchronized List<Pet> addPets(List<Pet> pets) {
+        List<Pet> added = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            if (index(pet)) {
+                added.add(pet);
+            }
+        }
+        List<Pet> sorted = new ArrayList<>(added);
+        sorted.sort(PetOrder.ID::compare);   // near linear for a batch that is already in id order
+        idOrder.addAll(sorted);
+        Map<Integer, List<Pet>> byAge = new HashMap<>();
+        for (Pet pet : sorted) {
+            byAge.computeIfAbsent(pet.getAge(), k -> new ArrayList<>()).add(pet);
+        }
+        for (Map.Entry<Integer, List<Pet>> entry : byAge.entrySet()) {
+            ageIndex.computeIfAbsent(entry.getKey(), k -> new SortedPets()).addAll(entry.getValue());
+        }
+        return added;
+    }
+
+    // Called by Pet.setStatus
+    synchronized void statusChanged(Pet pet, Pet.AdoptionStatus oldStatus) {
+        String id = pet.getUniqueId();
+        if (petsById.get(id) != pet) {
+            return;
+        }
+        statusIndex.get(oldStatus).remove(id);
+        statusIndex.get(pet.getStatus()).add(id);
+        for (CatalogListener listener : listeners) {
+            listener.statusChanged(pet, oldStatus);
+        }
+    }
+
+    @Override public synchronized Pet getPet(String uniqueId) { return petsById.get(uniqueId); }
+    @Override public synchronized boolean containsId(String uniqueId) { return petsById.containsKey(uniqueId); }
+    @Override public synchronized int size() { return petsById.size(); }
+    @Override public synchronized int count(Pet.AdoptionStatus status) { return statusIndex.get(status).size(); }
+    @Override public synchronized List<Pet> getAllPets() { return new ArrayList<>(petsById.values()); }
+
+    @Override
+    public synchronized List<Pet> findByStatus(Pet.AdoptionStatus status) {
+        return collect(statusIndex.get(status));
+    }
+
+    @Override
+    public synchronized List<Pet> findByBreed(String breed) {
+        int code = Vocabulary.BREEDS.find(breed);
+        Set<String> ids = code >= 0 && code < breedIndex.size() ? breedIndex.get(code) : null;
+        return ids == null ? new ArrayList<>() : collect(ids);
+    }
+
+    @Override
+    public synchronized Pet findByName(String name, Pet.AdoptionStatus status) {
+        for (String id : nameIndex.getOrDefault(normalize(name), Collections.emptySet())) {
+            Pet pet = petsById.get(id);
+            if (pet.getStatus() == status) {
+                return pet;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized List<Pet> search(String species, int maxAge, Pet.AdoptionStatus status) {
+        List<Set<String>> speciesSets = null;
+        boolean[] speciesMatch = null;
+        int speciesCount = 0;
+        if (!Vocabulary.key(species).isEmpty()) {
+            // only the distinct species are matched against the text, pets are then checked by code
+            speciesMatch = Vocabulary.SPECIES.matching(species);
+            speciesSets = new ArrayList<>();
+            for (int code = 0; code < speciesMatch.length && code < speciesIndex.size(); code++) {
+                Set<String> ids = speciesIndex.get(code);
+                if (speciesMatch[code] && ids != null) {
+                    speciesSets.add(ids);
+                    speciesCount += ids.size();
+                }
+            }
+            if (speciesSets.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+        Collection<SortedPets> ageSets = maxAge > 0 ? ageIndex.headMap(maxAge, true).values() : null;
+        Set<String> statusSet = status != null ? statusIndex.get(status) : null;
+
+        // drive the scan from the smallest candidate set, check the rest per pet
+        List<Pet> results = new ArrayList<>();
+        int statusCount = statusSet != null ? statusSet.size() : Integer.MAX_VALUE;
+        if (speciesSets != null && speciesCount <= statusCount) {
+            for (Set<String> ids : speciesSets) {
+                for (String id : ids) {
+                    Pet pet = petsById.get(id);
+                    if ((status == null || pet.getStatus() == status) && (maxAge <= 0 || pet.getAge() <= maxAge)) {
+                        results.add(pet);
+                    }
+                }
+            }
+        } else if (statusSet != null) {
+            for (String id : statusSet) {
+                Pet pet = petsById.get(id);
+                if ((maxAge <= 0 || pet.getAge() <= maxAge) && speciesMatches(speciesMatch, pet)) {
+                    results.add(pet);
+                }
+            }
+        } else if (ageSets != null) {
+            for (SortedPets pets : ageSets) {
+                for (int i = 0; i < pets.size(); i++) {
+                    if (speciesMatches(speciesMatch, pets.get(i))) {
+                        results.add(pets.get(i));
+                    }
+                }
+            }
+        } else {
+            for (Pet pet : petsById.values()) {
+                if (speciesMatches(speciesMatch, pet)) {
+                    results.add(pet);
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public synchronized Page<Pet> page(Pet.AdoptionStatus status, PetOrder order, String cursor, int limit) {
+        // walks the sorted index from the cursor, so a page costs its own size plus the pets skipped by status
+        Pet after = order.after(cursor);
+        List<Pet> fetched = new ArrayList<>(limit + 1);
+        if (order == PetOrder.ID) {
+            for (int i = after == null ? 0 : idOrder.after(after); i < idOrder.size(); i++) {
+                if (take(fetched, idOrder.get(i), status, limit)) {
+                    break;
+                }
+            }
+        } else {
+            scan:
+            for (Map.Entry<Integer, SortedPets> entry : (after == null ? ageIndex : ageIndex.tailMap(after.getAge(), true)).entrySet()) {
+                SortedPets pets = entry.getValue();
+                boolean resume = after != null && entry.getKey() == after.getAge();
+                for (int i = resume ? pets.after(after) : 0; i < pets.size(); i++) {
+                    if (take(fetched, pets.get(i), status, limit)) {
+                        break scan;
+                    }
+                }
+            }
+        }
+        return Page.of(fetched, limit, order::cursor);
+    }
+
+    // Adds the pet if its status fits; true once the page (plus one to detect a next page) is full
+    private static boolean take(List<Pet> fetched, Pet pet, Pet.AdoptionStatus status, int limit) {
+        if (status == null || pet.getStatus() == status) {
+            fetched.add(pet);
+        }
+        return fetched.size() > limit;
+    }
+
+    private static boolean speciesMatches(boolean[] speciesMatch, Pet pet) {
+        return speciesMatch == null || Vocabulary.contains(speciesMatch, pet.getSpeciesCode());
+    }
+
+    private List<Pet> collect(Collection<String> ids) {
+        List<Pet> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            result.add(petsById.get(id));
+        }
+        return result;
+    }
+}
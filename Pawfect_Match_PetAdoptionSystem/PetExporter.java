@@ -0,0 +1,56 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+
+// Streaming pet export to CSV or JSON (by file extension); rows are written as they are read
+class PetExporter {
+    static int export(PetRepository catalog, Path file) throws IOException {
+        boolean json = PetImporter.isJson(file);
+        int count = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(json ? "[\n" : "id,name,species,age,breed,status\n");
+            for (Pet pet : catalog.getAllPets()) {
+                if (json) {
+                    out.write(count > 0 ? ",\n  {" : "  {");
+                    out.write("\"id\": " + jsonString(pet.getUniqueId()));
+                    out.write(", \"name\": " + jsonString(pet.getName()));
+                    out.write(", \"species\": " + jsonString(pet.getSpecies()));
+                    out.write(", \"age\": " + pet.getAge());
+                    out.write(", \"breed\": " + jsonString(pet.getBreed()));
+                    out.write(", \"status\": \"" + pet.getStatus() + "\"}");
+                } else {
+                    out.write(csvField(pet.getUniqueId()) + "," + csvField(pet.getName()) + ","
+                        + csvField(pet.getSpecies()) + "," + pet.getAge() + "," + csvField(pet.getBreed()) + "," + pet.getStatus() + "\n");
+                }
+                count++;
+            }
+            if (json) {
+                out.write("\n]\n");
+            }
+        }
+        return count;
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,19 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Collision-free pet ids: P1, P2, ... skipping any id that is already taken
+class PetIdSequence {
+    private final AtomicLong next = new AtomicLong(1);
+    private final PetRepository catalog;
+
+    PetIdSequence(PetRepository catalog) {
+        this.catalog = catalog;
+    }
+
+    String nextId() {
+        String id;
+        do {
+            id = "P" + next.getAndIncrement();
+        } while (catalog.containsId(id));
+        return id;
+    }
+}
@@ -0,0 +1,273 @@
+import java.util.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+
+// Streaming pet import from CSV (header row: name,species,age,breed[,id][,status]) or JSON
+// (an array of objects, or one object per line). Rows are validated and inserted in batches,
+// so memory use does not depend on the file size.
+class PetImporter {
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_AGE = 60;
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    static class Result {
+        int imported;
+        int rejected;
+        final List<String> errors = new ArrayList<>();
+
+        void reject(long line, String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + reason);
+            }
+        }
+    }
+
+    private final PetRepository catalog;
+    private final PersistentStore store;
+    private final PetIdSequence ids;
+
+    PetImporter(PetRepository catalog, PersistentStore store, PetIdSequence ids) {
+        this.catalog = catalog;
+        this.store = store;
+        this.ids = ids;
+    }
+
+    public Result importFile(Path file, AdminUser admin) throws IOException {
+        Result result = new Result();
+        List<Pet> batch = new ArrayList<>(BATCH_SIZE);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (isJson(file)) {
+                readJson(reader, result, batch, admin);
+            } else {
+                readCsv(reader, result, batch, admin);
+            }
+        }
+        flush(batch, result, admin);
+        return result;
+    }
+
+    static boolean isJson(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".json") || name.endsWith(".jsonl");
+    }
+
+    private void readCsv(BufferedReader reader, Result result, List<Pet> batch, AdminUser admin) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        List<String> columns = parseCsvLine(header);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            index.put(PetCatalog.normalize(columns.get(i)), i);
+        }
+        for (String required : new String[] {"name", "species", "age", "breed"}) {
+            if (!index.containsKey(required)) {
+                throw new IOException("CSV header is missing the '" + required + "' column");
+            }
+        }
+        Map<String, String> record = new HashMap<>();
+        String line;
+        long lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> fields = parseCsvLine(line);
+            record.clear();
+            for (Map.Entry<String, Integer> column : index.entrySet()) {
+                record.put(column.getKey(), column.getValue() < fields.size() ? fields.get(column.getValue()) : null);
+            }
+            accept(record, lineNumber, result, batch, admin);
+        }
+    }
+
+    // Splits one CSV line; handles quoted fields with commas and doubled quotes
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Minimal streaming reader for flat JSON objects with string, number, boolean or null values
+    private void readJson(BufferedReader reader, Result result, List<Pet> batch, AdminUser admin) throws IOException {
+        PushbackReader in = new PushbackReader(reader, 1);
+        Map<String, String> record = new HashMap<>();
+        long[] line = {1};
+        int c;
+        while ((c = next(in, line)) != -1) {
+            if (c == '[' || c == ']' || c == ',') {
+                continue;
+            }
+            if (c != '{') {
+                throw new IOException("Expected '{' on line " + line[0]);
+            }
+            long startLine = line[0];
+            record.clear();
+            while ((c = next(in, line)) != '}') {
+                if (c == ',') {
+                    continue;
+                }
+                if (c != '"') {
+                    throw new IOException("Expected a field name on line " + line[0]);
+                }
+                String key = PetCatalog.normalize(readJsonString(in, line));
+                if (next(in, line) != ':') {
+                    throw new IOException("Expected ':' on line " + line[0]);
+                }
+                c = next(in, line);
+                if (c == '"') {
+                    record.put(key, readJsonString(in, line));
+                } else if (c == '{' || c == '[') {
+                    throw new IOException("Nested values are not supported (line " + line[0] + ")");
+                } else {
+                    StringBuilder literal = new StringBuilder().append((char) c);
+                    while ((c = in.read()) != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                        literal.append((char) c);
+                    }
+                    if (c != -1) {
+                        in.unread(c);
+                    }
+                    record.put(key, literal.toString().equals("null") ? null : literal.toString());
+                }
+            }
+            accept(record, startLine, result, batch, admin);
+        }
+    }
+
+    private static int next(PushbackReader in, long[] line) throws IOException {
+        int c;
+        while ((c = in.read()) != -1 && Character.isWhitespace(c)) {
+            if (c == '\n') {
+                line[0]++;
+            }
+        }
+        return c;
+    }
+
+    private static String readJsonString(PushbackReader in, long[] line) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '"') {
+            if (c == -1) {
+                throw new IOException("Unterminated string on line " + line[0]);
+            }
+            if (c == '\\') {
+                c = in.read();
+                switch (c) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            hex[i] = (char) in.read();
+                        }
+                        sb.append((char) Integer.parseInt(new String(hex), 16));
+                        break;
+                    default: sb.append((char) c);
+                }
+            } else {
+                sb.append((char) c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void accept(Map<String, String> record, long line, Result result, List<Pet> batch, AdminUser admin) {
+        String name = trimmed(record.get("name"));
+        String species = trimmed(record.get("species"));
+        String breed = trimmed(record.get("breed"));
+        String ageText = trimmed(record.get("age"));
+        String id = trimmed(record.get("id"));
+        String status = trimmed(record.get("status"));
+        if (name.isEmpty()) {
+            result.reject(line, "missing name");
+            return;
+        }
+        if (species.isEmpty() || !species.matches("[\\p{L} .'-]+")) {
+            result.reject(line, "invalid species '" + species + "'");
+            return;
+        }
+        int age;
+        try {
+            age = Integer.parseInt(ageText);
+        } catch (NumberFormatException e) {
+            result.reject(line, "invalid age '" + ageText + "'");
+            return;
+        }
+        if (age < 0 || age > MAX_AGE) {
+            result.reject(line, "age " + age + " is out of range 0-" + MAX_AGE);
+            return;
+        }
+        Pet.AdoptionStatus adoptionStatus = Pet.AdoptionStatus.AVAILABLE;
+        if (!status.isEmpty()) {
+            try {
+                adoptionStatus = Pet.AdoptionStatus.valueOf(status.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                result.reject(line, "invalid status '" + status + "'");
+                return;
+            }
+            if (adoptionStatus == Pet.AdoptionStatus.PENDING) {
+                // pending means reserved by an application, and imports bring none that could release it
+                result.reject(line, "status PENDING cannot be imported, use AVAILABLE");
+                return;
+            }
+        }
+        if (!id.isEmpty() && catalog.containsId(id)) {
+            result.reject(line, "pet id " + id + " already exists");
+            return;
+        }
+        Pet pet = new Pet(name, id.isEmpty() ? ids.nextId() : id, species, age, breed);
+        pet.setStatus(adoptionStatus);
+        batch.add(pet);
+        if (batch.size() >= BATCH_SIZE) {
+            flush(batch, result, admin);
+        }
+    }
+
+    private static String trimmed(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    private void flush(List<Pet> batch, Result result, AdminUser admin) {
+        List<Pet> added = catalog.addPets(batch, ShelterNetwork.of(admin));
+        result.imported += added.size();
+        result.rejected += batch.size() - added.size();    // ids taken within the same batch
+        if (admin != null) {
+            for (Pet pet : added) {
+                admin.addPet(pet);
+            }
+        }
+        store.petsAdded(added, admin);
+        batch.clear();
+    }
+}
@@ -0,0 +1,100 @@
+// Stable orders for paging through pets: by id, or by age then id
+enum PetOrder {
+    ID, AGE;
+
+    // Digit runs compare as numbers, so P2 sorts before P10
+    static int compareIds(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int k = 0;
+        while (k < n && a.charAt(k) == b.charAt(k)) {
+            k++;
+        }
+        if (k == a.length() && k == b.length()) {
+            return 0;
+        }
+        int run = k;   // start of the digit run the first difference falls in, if any
+        while (run > 0 && isDigit(a.charAt(run - 1))) {
+            run--;
+        }
+        boolean digitA = k < a.length() && isDigit(a.charAt(k));
+        boolean digitB = k < b.length() && isDigit(b.charAt(k));
+        if (!(digitA && digitB || run < k && (digitA || digitB))) {
+            return k == n ? Integer.compare(a.length(), b.length()) : Character.compare(a.charAt(k), b.charAt(k));
+        }
+        int c = compareNumbers(a, b, run);
+        if (c != 0) {
+            return c;
+        }
+        // the same number spelled with leading zeros: compare with them dropped, then as plain text
+        c = compareIds(dropZeros(a), dropZeros(b));
+        return c != 0 ? c : a.compareTo(b);
+    }
+
+    // Compares the digit runs starting at from in both ids by value
+    private static int compareNumbers(String a, String b, int from) {
+        int endA = from;
+        int endB = from;
+        while (endA < a.length() && isDigit(a.charAt(endA))) {
+            endA++;
+        }
+        while (endB < b.length() && isDigit(b.charAt(endB))) {
+            endB++;
+        }
+        int i = from;
+        int j = from;
+        while (i < endA - 1 && a.charAt(i) == '0') {
+            i++;
+        }
+        while (j < endB - 1 && b.charAt(j) == '0') {
+            j++;
+        }
+        int c = Integer.compare(endA - i, endB - j);   // more digits, bigger number
+        for (; c == 0 && i < endA; i++, j++) {
+            c = Character.compare(a.charAt(i), b.charAt(j));
+        }
+        return c;
+    }
+
+    // Leading zeros of every digit run dropped, a lone 0 kept
+    private static String dropZeros(String id) {
+        StringBuilder sb = new StringBuilder(id.length());
+        boolean significant = false;   // a nonzero digit of the current run was kept
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!isDigit(c)) {
+                significant = false;
+                sb.append(c);
+            } else if (c != '0' || significant || i + 1 == id.length() || !isDigit(id.charAt(i + 1))) {
+                significant = true;
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    int compare(Pet a, Pet b) {
+        int c = this == AGE ? Integer.compare(a.getAge(), b.getAge()) : 0;
+        return c != 0 ? c : compareIds(a.getUniqueId(), b.getUniqueId());
+    }
+
+    String cursor(Pet pet) {
+        return Page.encode(name(), Integer.toString(pet.getAge()), pet.getUniqueId());
+    }
+
+    // Stand-in pet holding the age and id the cursor points after; null for the first page
+    Pet after(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        String[] fields = Page.decode(cursor, name(), 3);
+        try {
+            return new Pet(null, fields[2], -1, Integer.parseInt(fields[1]), -1);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
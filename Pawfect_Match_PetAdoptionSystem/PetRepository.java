@@ -0,0 +1,49 @@
+import java.util.*;
+import java.io.*;
+
+// Where pets are stored: heap indexes (PetCatalog) or memory-mapped columns (MappedPetRepository)
+interface PetRepository extends Closeable {
+    void addListener(CatalogListener listener);
+    void removeListener(CatalogListener listener);
+    boolean addPet(Pet pet);
+    Pet getPet(String uniqueId);
+    boolean containsId(String uniqueId);
+    int size();
+    int count(Pet.AdoptionStatus status);
+    Iterable<Pet> getAllPets();
+    List<Pet> findByStatus(Pet.AdoptionStatus status);
+    List<Pet> findByBreed(String breed);
+    // First pet with this name (ignoring case and surrounding spaces) and status, or null
+    Pet findByName(String name, Pet.AdoptionStatus status);
+    // species: partial, case-insensitive match ("" = any), maxAge: 0 = any, status: null = any
+    List<Pet> search(String species, int maxAge, Pet.AdoptionStatus status);
+    // Up to limit (> 0) pets after the cursor (null = first page) in the given order; status: null = any
+    Page<Pet> page(Pet.AdoptionStatus status, PetOrder order, String cursor, int limit);
+
+    // Adds a batch of pets; returns the ones that were added (duplicate ids are skipped)
+    default List<Pet> addPets(List<Pet> pets) {
+        List<Pet> added = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            if (addPet(pet)) {
+                added.add(pet);
+            }
+        }
+        return added;
+    }
+
+    // Shelter-aware variants; repositories that hold a single shelter ignore the shelter name
+    default boolean addPet(Pet pet, String shelter) {
+        return addPet(pet);
+    }
+
+    default List<Pet> addPets(List<Pet> pets, String shelter) {
+        return addPets(pets);
+    }
+
+    default String shelterOf(String uniqueId) {
+        return ShelterNetwork.DEFAULT;
+    }
+
+    @Override
+    default void close() throws IOException {}
+}
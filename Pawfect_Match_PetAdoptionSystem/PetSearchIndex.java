@@ -0,0 +1,358 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typo-tolerant keyword search over pet name, species and breed.
+// Words are split into trigrams ("lab" "abr" ...) in an inverted index; a query scores
+// the pets sharing enough of its trigrams and keeps the best k in a bounded heap.
+// Single words under SHORT_QUERY letters have too few trigrams to survive a typo ("mx" shares
+// one of three with "max"), so they are matched by prefix and by edit distance instead.
+// Kept up to date through catalog events; only AVAILABLE pets are searchable.
+// Documents hold pet ids, not pets; results are looked up in the catalog, so a mapped store's
+// rows are not pinned on the heap.
+class PetSearchIndex implements CatalogListener {
+    private static final int[] FIELD_WEIGHT = {3, 2, 2};   // name, species, breed
+    private static final double MIN_MATCH = 0.5;           // share of query trigrams a pet must have
+    private static final int SHORT_QUERY = 4;
+    private static final int EXACT = 4, PREFIX = 2, ONE_EDIT = 1;   // short query match strengths
+
+    // Growable int array, avoids boxing in the posting lists
+    private static class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+
+    // Per-query work arrays, pooled so concurrent queries don't share them
+    private static class Scratch {
+        int[] score = new int[0];
+        int[] hits = new int[0];
+        int[] mark = new int[0];
+        final IntList touched = new IntList();
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntList> postings = new HashMap<>();   // trigram -> doc << 2 | field
+    private final Map<String, IntList> shortWords = new HashMap<>();   // words of up to SHORT_QUERY letters
+    private final PetRepository catalog;
+    private final List<String> docs = new ArrayList<>();              // doc -> pet id
+    private final Map<String, Integer> docByPetId = new HashMap<>();
+    private final IntList docTrigrams = new IntList();
+    private final BitSet searchable = new BitSet();
+    private final ConcurrentLinkedQueue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    PetSearchIndex(PetRepository catalog) {
+        this.catalog = catalog;
+    }
+
+    // Indexes every pet in the catalog (already indexed ones are skipped). Takes the lock per pet,
+    // never around the catalog scan, since catalog events arrive with the catalog locked.
+    public void rebuild() {
+        for (Pet pet : catalog.getAllPets()) {
+            petAdded(pet);
+        }
+    }
+
+    @Override
+    public void petAdded(Pet pet) {
+        lock.writeLock().lock();
+        try {
+            index(pet);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void statusChanged(Pet pet, Pet.AdoptionStatus oldStatus) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByPetId.get(pet.getUniqueId());
+            if (doc != null) {
+                searchable.set(doc, pet.getStatus() == Pet.AdoptionStatus.AVAILABLE);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Pet pet) {
+        String id = pet.getUniqueId();
+        if (docByPetId.containsKey(id)) {
+            return;
+        }
+        int doc = docs.size();
+        docs.add(id);
+        docByPetId.put(id, doc);
+        searchable.set(doc, pet.getStatus() == Pet.AdoptionStatus.AVAILABLE);
+        String[] fields = {pet.getName(), pet.getSpecies(), pet.getBreed()};
+        Set<Long> all = new HashSet<>();
+        for (int field = 0; field < fields.length; field++) {
+            for (long trigram : trigrams(fields[field])) {
+                all.add(trigram);
+                postings.computeIfAbsent(trigram, k -> new IntList()).add(doc << 2 | field);
+            }
+            for (String word : words(fields[field])) {
+                if (word.length() <= SHORT_QUERY) {
+                    shortWords.computeIfAbsent(word, k -> new IntList()).add(doc << 2 | field);
+                }
+            }
+        }
+        docTrigrams.add(all.size());
+    }
+
+    static List<String> words(String text) {
+        List<String> result = new ArrayList<>();
+        for (String word : PetCatalog.normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    // Distinct trigrams of each word, padded so word starts and ends count
+    static Set<Long> trigrams(String text) {
+        Set<Long> result = new LinkedHashSet<>();
+        for (String word : words(text)) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(trigram(padded, i));
+            }
+        }
+        return result;
+    }
+
+    private static long trigram(String padded, int at) {
+        return (long) padded.charAt(at) << 32 | (long) padded.charAt(at + 1) << 16 | padded.charAt(at + 2);
+    }
+
+    // Best k available pets for the query, most relevant first
+    public List<Pet> search(String query, int k) {
+        Set<Long> queryTrigrams = trigrams(query);
+        if (queryTrigrams.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
+        List<String> queryWords = words(query);
+        if (queryWords.size() == 1 && queryWords.get(0).length() < SHORT_QUERY) {
+            return searchShort(queryWords.get(0), k);
+        }
+        int minHits = (int) Math.ceil(queryTrigrams.size() * MIN_MATCH);
+        Scratch scratch = borrow();
+        List<String> ids;
+        lock.readLock().lock();
+        try {
+            ensureCapacity(scratch, docs.size());
+            int[] score = scratch.score;
+            int[] hits = scratch.hits;
+            int[] mark = scratch.mark;
+            IntList touched = scratch.touched;
+            int pass = 0;
+            for (long trigram : queryTrigrams) {
+                pass++;
+                IntList list = postings.get(trigram);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.data[i] >>> 2;
+                    if (!searchable.get(doc)) {
+                        continue;
+                    }
+                    if (hits[doc] == 0) {
+                        touched.add(doc);
+                    }
+                    score[doc] += FIELD_WEIGHT[list.data[i] & 3];
+                    if (mark[doc] != pass) {
+                        mark[doc] = pass;
+                        hits[doc]++;
+                    }
+                }
+            }
+
+            long[] heap = new long[Math.min(k, Math.max(1, touched.size))];
+            int heapSize = 0;
+            for (int i = 0; i < touched.size; i++) {
+                int doc = touched.data[i];
+                if (hits[doc] >= minHits) {
+                    // weighted overlap, normalized like a Dice coefficient so closer spellings rank higher
+                    long relevance = 1000L * score[doc] * hits[doc] / (queryTrigrams.size() + docTrigrams.data[doc]);
+                    heapSize = offer(heap, heapSize, relevance, doc);
+                }
+                score[doc] = 0;
+                hits[doc] = 0;
+                mark[doc] = 0;
+            }
+            touched.size = 0;
+            ids = ranked(heap, heapSize);
+        } finally {
+            lock.readLock().unlock();
+            scratchPool.add(scratch);
+        }
+        return resolve(catalog, ids);
+    }
+
+    // One short word: exact words rank first, then words it starts, then words one edit away
+    private List<Pet> searchShort(String word, int k) {
+        String padded = "  " + word;
+        long prefix = word.length() == 1 ? trigram(padded, 0) : trigram(padded, 1);   // start of a word
+        Scratch scratch = borrow();
+        List<String> ids;
+        lock.readLock().lock();
+        try {
+            ensureCapacity(scratch, docs.size());
+            int[] score = scratch.score;
+            IntList touched = scratch.touched;
+            IntList starts = postings.get(prefix);
+            if (starts != null) {
+                collect(starts, PREFIX, score, touched);
+            }
+            for (Map.Entry<String, IntList> entry : shortWords.entrySet()) {
+                if (entry.getKey().equals(word)) {
+                    collect(entry.getValue(), EXACT, score, touched);
+                } else if (withinOneEdit(word, entry.getKey())) {
+                    collect(entry.getValue(), ONE_EDIT, score, touched);
+                }
+            }
+            long[] heap = new long[Math.min(k, Math.max(1, touched.size))];
+            int heapSize = 0;
+            for (int i = 0; i < touched.size; i++) {
+                int doc = touched.data[i];
+                heapSize = offer(heap, heapSize, score[doc], doc);
+                score[doc] = 0;
+            }
+            touched.size = 0;
+            ids = ranked(heap, heapSize);
+        } finally {
+            lock.readLock().unlock();
+            scratchPool.add(scratch);
+        }
+        return resolve(catalog, ids);
+    }
+
+    private void collect(IntList list, int strength, int[] score, IntList touched) {
+        for (int i = 0; i < list.size; i++) {
+            int doc = list.data[i] >>> 2;
+            if (!searchable.get(doc)) {
+                continue;
+            }
+            if (score[doc] == 0) {
+                touched.add(doc);
+            }
+            score[doc] += strength * FIELD_WEIGHT[list.data[i] & 3];
+        }
+    }
+
+    // One insertion, deletion, substitution or swap of neighbouring letters turns a into b
+    static boolean withinOneEdit(String a, String b) {
+        if (a.length() > b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        if (b.length() - a.length() > 1) {
+            return false;
+        }
+        int same = 0;
+        while (same < a.length() && a.charAt(same) == b.charAt(same)) {
+            same++;
+        }
+        if (a.length() < b.length()) {
+            return a.regionMatches(same, b, same + 1, a.length() - same);
+        }
+        if (same == a.length()) {
+            return true;
+        }
+        return a.regionMatches(same + 1, b, same + 1, a.length() - same - 1)
+            || same + 1 < a.length() && a.charAt(same) == b.charAt(same + 1) && a.charAt(same + 1) == b.charAt(same)
+                && a.regionMatches(same + 2, b, same + 2, a.length() - same - 2);
+    }
+
+    // Bounded min-heap of (relevance << 32 | doc) holding the best heap.length docs; returns the new size
+    private static int offer(long[] heap, int heapSize, long relevance, int doc) {
+        long entry = relevance << 32 | (Integer.MAX_VALUE - doc);   // ties: earlier pets first
+        if (heapSize < heap.length) {
+            heap[heapSize++] = entry;
+            siftUp(heap, heapSize - 1);
+        } else if (entry > heap[0]) {
+            heap[0] = entry;
+            siftDown(heap, heapSize);
+        }
+        return heapSize;
+    }
+
+    private List<String> ranked(long[] heap, int heapSize) {
+        Arrays.sort(heap, 0, heapSize);
+        List<String> ids = new ArrayList<>(heapSize);
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ids.add(docs.get(Integer.MAX_VALUE - (int) heap[i]));
+        }
+        return ids;
+    }
+
+    // Pets for the ids, in order; called without the index lock, since the catalog's lock comes first
+    static List<Pet> resolve(PetRepository catalog, List<String> ids) {
+        List<Pet> pets = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Pet pet = catalog.getPet(id);
+            if (pet != null) {
+                pets.add(pet);
+            }
+        }
+        return pets;
+    }
+
+    private Scratch borrow() {
+        Scratch scratch = scratchPool.poll();
+        return scratch != null ? scratch : new Scratch();
+    }
+
+    private static void ensureCapacity(Scratch scratch, int docs) {
+        if (scratch.score.length < docs) {
+            int size = Math.max(docs, scratch.score.length * 2);
+            scratch.score = new int[size];
+            scratch.hits = new int[size];
+            scratch.mark = new int[size];
+        }
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0 && heap[(i - 1) / 2] > heap[i]) {
+            swap(heap, i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(heap, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(long[] heap, int a, int b) {
+        long tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+}
@@ -0,0 +1,26 @@
+// Events in the last minute, counted in one slot per second
+class RateWindow {
+    private final long[] seconds = new long[60];
+    private final long[] counts = new long[60];
+
+    public synchronized void record() {
+        long now = System.currentTimeMillis() / 1000;
+        int slot = (int) (now % 60);
+        if (seconds[slot] != now) {
+            seconds[slot] = now;
+            counts[slot] = 0;
+        }
+        counts[slot]++;
+    }
+
+    public synchronized long lastMinute() {
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < 60; i++) {
+            if (now - seconds[i] < 60) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,313 @@
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Matches adopters to available pets. Pets are kept as primitive columns (species/breed codes,
+// age, availability) and scored against a preference vector built from the user's application
+// history plus what they asked for; large catalogs are scored in parallel on the fork-join pool.
+// Results are cached per user until the catalog changes; pawfect.recommend.cache users are kept,
+// least recently served dropped first. Rows and cached results hold pet ids, looked up in the catalog.
+class RecommendationEngine implements CatalogListener {
+    private static final int SPLIT = 32_768;        // pets per fork-join leaf
+    private static final float SPECIES_WEIGHT = 0.5f;
+    private static final float BREED_WEIGHT = 0.3f;
+    private static final float AGE_WEIGHT = 0.2f;
+    private static final float STATED_BONUS = 1.0f; // extra weight for what the user asked for
+
+    // What a user is looking for, as weights per species/breed code and a target age
+    static class Preferences {
+        final float[] species;
+        final float[] breeds;
+        final float targetAge;   // negative when there is no age preference
+        final int[] applied;     // sorted rows of pets the user already applied for
+
+        Preferences(float[] species, float[] breeds, float targetAge, int[] applied) {
+            this.species = species;
+            this.breeds = breeds;
+            this.targetAge = targetAge;
+            this.applied = applied;
+        }
+    }
+
+    private static class Cached {
+        final long version;
+        final String species;
+        final int age;
+        final int n;
+        final int history;
+        final List<String> ids;
+
+        Cached(long version, String species, int age, int n, int history, List<String> ids) {
+            this.version = version;
+            this.history = history;
+            this.species = species;
+            this.age = age;
+            this.n = n;
+            this.ids = ids;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowByPetId = new HashMap<>();
+    private int[] speciesOf = new int[1024];   // Vocabulary codes
+    private int[] breedOf = new int[1024];
+    private int[] ageOf = new int[1024];
+    private boolean[] available = new boolean[1024];
+    private String[] ids = new String[1024];
+    private int rows;
+    private final AtomicLong version = new AtomicLong();
+    private final PetRepository catalog;
+    private final Map<User, Cached> cache;
+
+    RecommendationEngine(PetRepository catalog) {
+        this(catalog, Integer.getInteger("pawfect.recommend.cache", 1024));
+    }
+
+    RecommendationEngine(PetRepository catalog, int cacheSize) {
+        this.catalog = catalog;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<User, Cached>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<User, Cached> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    // Adds every pet in the catalog (already known ones are skipped), locking per pet like PetSearchIndex
+    public void rebuild() {
+        for (Pet pet : catalog.getAllPets()) {
+            petAdded(pet);
+        }
+    }
+
+    @Override
+    public void petAdded(Pet pet) {
+        lock.writeLock().lock();
+        try {
+            add(pet);
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void statusChanged(Pet pet, Pet.AdoptionStatus oldStatus) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByPetId.get(pet.getUniqueId());
+            if (row != null) {
+                available[row] = pet.getStatus() == Pet.AdoptionStatus.AVAILABLE;
+            }
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Pet pet) {
+        String id = pet.getUniqueId();
+        if (rowByPetId.containsKey(id)) {
+            return;
+        }
+        if (rows == ids.length) {
+            int size = rows * 2;
+            speciesOf = Arrays.copyOf(speciesOf, size);
+            breedOf = Arrays.copyOf(breedOf, size);
+            ageOf = Arrays.copyOf(ageOf, size);
+            available = Arrays.copyOf(available, size);
+            ids = Arrays.copyOf(ids, size);
+        }
+        speciesOf[rows] = pet.getSpeciesCode();
+        breedOf[rows] = pet.getBreedCode();
+        ageOf[rows] = pet.getAge();
+        available[rows] = pet.getStatus() == Pet.AdoptionStatus.AVAILABLE;
+        ids[rows] = id;
+        rowByPetId.put(id, rows);
+        rows++;
+    }
+
+    // Top n matches for the user, served from cache while the catalog is unchanged.
+    // statedSpecies may be partial or blank; statedAge is negative for no preference.
+    public List<Pet> recommend(RegularUser user, String statedSpecies, int statedAge, int n) {
+        String species = Vocabulary.key(statedSpecies);
+        List<AdoptionApplication> history = user.getApplications();
+        long current = version.get();
+        Cached cached = cache.get(user);
+        if (cached != null && cached.version == current && cached.history == history.size()
+                && cached.species.equals(species) && cached.age == statedAge && cached.n >= n) {
+            return PetSearchIndex.resolve(catalog, cached.ids.subList(0, Math.min(n, cached.ids.size())));
+        }
+        Preferences prefs = preferences(history, species, statedAge);   // takes the lock itself
+        List<String> result;
+        lock.readLock().lock();
+        try {
+            current = version.get();   // stable while the read lock is held
+            result = score(prefs, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+        cache.put(user, new Cached(current, species, statedAge, n, history.size(), result));
+        return PetSearchIndex.resolve(catalog, result);
+    }
+
+    // Preference vector: shares of species and breeds the user applied for, average age applied for,
+    // plus a bonus for every species containing the stated text
+    Preferences preferences(List<AdoptionApplication> history, String statedSpecies, int statedAge) {
+        // pet fields are read before taking the lock: a mapped pet's getters take the store's lock,
+        // which catalog events hold while they wait for ours
+        float[] species = new float[Vocabulary.SPECIES.size()];
+        float[] breeds = new float[Vocabulary.BREEDS.size()];
+        float ageSum = 0;
+        int counted = 0;
+        String[] appliedIds = new String[history.size()];
+        for (AdoptionApplication app : history) {
+            Pet pet = app.getPet();
+            appliedIds[counted] = pet.getUniqueId();
+            int s = pet.getSpeciesCode();
+            int b = pet.getBreedCode();
+            if (s < species.length) {
+                species[s] += SPECIES_WEIGHT / history.size();
+            }
+            if (b < breeds.length) {
+                breeds[b] += BREED_WEIGHT / history.size();
+            }
+            ageSum += pet.getAge();
+            counted++;
+        }
+        lock.readLock().lock();
+        try {
+            int[] applied = new int[counted];
+            for (int i = 0; i < counted; i++) {
+                Integer row = rowByPetId.get(appliedIds[i]);
+                applied[i] = row == null ? -1 : row;
+            }
+            if (!statedSpecies.isEmpty()) {
+                boolean[] stated = Vocabulary.SPECIES.matching(statedSpecies);
+                for (int code = 0; code < species.length && code < stated.length; code++) {
+                    if (stated[code]) {
+                        species[code] += STATED_BONUS;
+                    }
+                }
+            }
+            float targetAge = statedAge >= 0 ? statedAge : counted > 0 ? ageSum / counted : -1;
+            Arrays.sort(applied);
+            return new Preferences(species, breeds, targetAge, applied);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Uncached scoring of every available pet, best first as pet ids; callers hold the read lock
+    List<String> score(Preferences prefs, int n) {
+        if (n <= 0 || rows == 0) {
+            return new ArrayList<>();
+        }
+        long[] top = rows <= SPLIT ? new ScoreTask(prefs, 0, rows, n).compute() : new ScoreTask(prefs, 0, rows, n).invoke();
+        Arrays.sort(top);
+        List<String> result = new ArrayList<>(top.length);
+        for (int i = top.length - 1; i >= 0; i--) {
+            result.add(ids[Integer.MAX_VALUE - (int) top[i]]);
+        }
+        return result;
+    }
+
+    // Scores [from, to) into a top-n array of (score bits << 32 | MAX - row), splitting big ranges
+    private class ScoreTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Preferences prefs;
+        private final int from;
+        private final int to;
+        private final int n;
+
+        ScoreTask(Preferences prefs, int from, int to, int n) {
+            this.prefs = prefs;
+            this.from = from;
+            this.to = to;
+            this.n = n;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > SPLIT) {
+                int mid = (from + to) >>> 1;
+                ScoreTask left = new ScoreTask(prefs, from, mid, n);
+                left.fork();
+                long[] right = new ScoreTask(prefs, mid, to, n).compute();
+                return merge(left.join(), right, n);
+            }
+            float[] speciesWeight = prefs.species;
+            float[] breedWeight = prefs.breeds;
+            float targetAge = prefs.targetAge;
+            int[] applied = prefs.applied;
+            long[] heap = new long[n];
+            int size = 0;
+            for (int row = from; row < to; row++) {
+                if (!available[row] || applied.length > 0 && Arrays.binarySearch(applied, row) >= 0) {
+                    continue;
+                }
+                int s = speciesOf[row];
+                int b = breedOf[row];
+                // codes added after the preferences were built have no weight yet
+                float score = (s < speciesWeight.length ? speciesWeight[s] : 0)
+                        + (b < breedWeight.length ? breedWeight[b] : 0);
+                if (targetAge >= 0) {
+                    score += AGE_WEIGHT / (1 + Math.abs(ageOf[row] - targetAge));
+                }
+                // non-negative floats order the same as their bit patterns
+                size = offer(heap, size, (long) Float.floatToIntBits(score) << 32 | (Integer.MAX_VALUE - row));
+            }
+            return Arrays.copyOf(heap, size);
+        }
+    }
+
+    private static long[] merge(long[] a, long[] b, int n) {
+        long[] heap = new long[n];
+        int size = 0;
+        for (long entry : a) {
+            size = offer(heap, size, entry);
+        }
+        for (long entry : b) {
+            size = offer(heap, size, entry);
+        }
+        return Arrays.copyOf(heap, size);
+    }
+
+    // Bounded min-heap insert; returns the new size
+    private static int offer(long[] heap, int size, long entry) {
+        if (size < heap.length) {
+            int i = size++;
+            heap[i] = entry;
+            while (i > 0 && heap[(i - 1) / 2] > heap[i]) {
+                long tmp = heap[i];
+                heap[i] = heap[(i - 1) / 2];
+                heap[(i - 1) / 2] = tmp;
+                i = (i - 1) / 2;
+            }
+        } else if (entry > heap[0]) {
+            heap[0] = entry;
+            int i = 0;
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                if (left < size && heap[left] < heap[smallest]) {
+                    smallest = left;
+                }
+                if (left + 1 < size && heap[left + 1] < heap[smallest]) {
+                    smallest = left + 1;
+                }
+                if (smallest == i) {
+                    break;
+                }
+                long tmp = heap[i];
+                heap[i] = heap[smallest];
+                heap[smallest] = tmp;
+                i = smallest;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.*;
+import java.io.*;
+
+class RegularUser extends User {
+    ApplicationStore applications; // set when the user files their first application
+
+    public RegularUser(String username, String password, String email) {
+        super(username, password, email);
+    }
+
+    RegularUser(String username, PasswordHasher.Credential credential, String email) {
+        super(username, credential, email);
+    }
+
+    // The user's applications in filing order, read from the shared store so statuses are live
+    public List<AdoptionApplication> getApplications() {
+        ApplicationStore store = applications;
+        return store == null ? new ArrayList<>() : store.findByApplicant(this);
+    }
+
+    // One page of the user's applications in filing order (cursor null = first page)
+    public Page<AdoptionApplication> getApplications(String cursor, int limit) {
+        ApplicationStore store = applications;
+        return store == null ? new Page<>(new ArrayList<>(), null) : store.historyPage(this, cursor, limit);
+    }
+
+    @Override // POLYMORPHISM
+    public void displayDashboard(PrintStream out) {
+        printDashboard(out, text -> {
+            out.println(text);
+            return true;
+        });
+    }
+
+    // Pauses after every screenful of applications
+    public void displayDashboard(ScreenPager pager) {
+        printDashboard(pager.out(), pager::print);
+    }
+
+    // Streams the history a page at a time, so a long one is never copied whole
+    private void printDashboard(PrintStream out, java.util.function.Predicate<String> row) {
+        out.print(ConsoleRenderer.USER_DASHBOARD);
+        out.println("Welcome, " + getUsername());
+        out.println("Email: " + getEmail());
+        out.println("Adoption Applications:");
+        String cursor = null;
+        do {
+            Page<AdoptionApplication> page = getApplications(cursor, ScreenPager.PAGE_SIZE);
+            for (AdoptionApplication app : page.items) {
+                if (!row.test(app.getPet().getName() + " - " + app.getStatus())) {
+                    return;
+                }
+            }
+            cursor = page.next;
+        } while (cursor != null);
+    }
+}
@@ -0,0 +1,65 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+// Session output buffer: the whole screen is collected here and written to the
+// channel in one go when the session flushes (right before it waits for input)
+class ScreenOutput extends OutputStream {
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+    ScreenOutput(OutputStream sink, Charset charset) {
+        this.channel = Channels.newChannel(sink);
+        this.encoder = charset.newEncoder();
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            buffer = bigger.put(buffer);
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        ensure(1);
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) {
+        ensure(len);
+        buffer.put(bytes, off, len);
+    }
+
+    // Encodes straight into the buffer, no intermediate String
+    void append(CharSequence text) {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                ensure(buffer.capacity());
+            } else {
+                encoder.flush(buffer);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
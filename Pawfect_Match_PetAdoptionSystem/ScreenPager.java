@@ -0,0 +1,48 @@
+import java.util.*;
+import java.io.*;
+
+// Prints listing rows to the session screen and pauses after every page (-Dpawfect.page.size, default 20)
+class ScreenPager {
+    static final int PAGE_SIZE = Integer.getInteger("pawfect.page.size", 20);
+
+    private final PrintStream out;
+    private final ScreenOutput screen;
+    private final Scanner scanner;
+    private final StringBuilder row = new StringBuilder(256);
+    private int shown;
+    private boolean stopped;
+
+    ScreenPager(PrintStream out, ScreenOutput screen, Scanner scanner) {
+        this.out = out;
+        this.screen = screen;
+        this.scanner = scanner;
+    }
+
+    PrintStream out() { return out; }
+    int shown() { return shown; }
+
+    // Reusable builder for the next row
+    StringBuilder row() {
+        row.setLength(0);
+        return row;
+    }
+
+    // Returns false once the user stops the listing
+    boolean print(CharSequence text) {
+        if (stopped) {
+            return false;
+        }
+        if (shown > 0 && shown % PAGE_SIZE == 0) {
+            out.print("-- " + shown + " shown. Press Enter for more, or Q to stop -- ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                stopped = true;
+                return false;
+            }
+        }
+        out.flush();    // keep PrintStream output and direct rows in order
+        screen.append(text);
+        screen.write('\n');
+        shown++;
+        return true;
+    }
+}
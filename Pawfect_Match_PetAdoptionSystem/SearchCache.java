@@ -0,0 +1,152 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.time.Duration;
+
+// Recent search results keyed by normalized filter (species, max age, status). The least recently
+// used entry goes once there are more than pawfect.search.cache, and entries older than
+// pawfect.search.ttl are not served. Catalog events drop exactly the entries whose filter matches
+// the changed pet, so a hit is never stale.
+class SearchCache implements CatalogListener {
+    // A cached result; rows are rendered the first time a listing shows them
+    static class Listing {
+        final List<Pet> pets;
+        final long created;
+        private final String[] rows;
+
+        Listing(List<Pet> pets, long created) {
+            this.pets = pets;
+            this.created = created;
+            this.rows = new String[pets.size()];
+        }
+
+        String row(int i) {
+            String row = rows[i];
+            if (row == null) {
+                row = ConsoleRenderer.appendPet(new StringBuilder(96), pets.get(i)).toString();
+                rows[i] = row;
+            }
+            return row;
+        }
+    }
+
+    private static final class Key {
+        final String species;
+        final int maxAge;
+        final Pet.AdoptionStatus status;
+
+        Key(String species, int maxAge, Pet.AdoptionStatus status) {
+            this.species = species;
+            this.maxAge = maxAge;
+            this.status = status;
+        }
+
+        boolean matches(String petSpecies, int age, Pet.AdoptionStatus petStatus) {
+            return (status == null || status == petStatus)
+                && (maxAge == 0 || age <= maxAge)
+                && (species.isEmpty() || petSpecies.contains(species));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return maxAge == key.maxAge && status == key.status && species.equals(key.species);
+        }
+
+        @Override
+        public int hashCode() {
+            return (species.hashCode() * 31 + maxAge) * 31 + Objects.hashCode(status);
+        }
+    }
+
+    private final long ttlNanos;
+    private final Map<Key, Listing> entries;
+    private long generation;    // bumped by every change, so a search that overlaps one is not kept
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    SearchCache(int capacity, Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<Key, Listing>(16, 0.75f, true) {   // access order: eldest is LRU
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Listing> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    // Cached result for the filter, or runs the search and keeps what it returns
+    Listing get(String species, int maxAge, Pet.AdoptionStatus status, java.util.function.Supplier<List<Pet>> search) {
+        Key key = new Key(Vocabulary.key(species), Math.max(0, maxAge), status);
+        long seen;
+        synchronized (this) {
+            Listing cached = entries.get(key);
+            if (cached != null && System.nanoTime() - cached.created < ttlNanos) {
+                hits.increment();
+                return cached;
+            }
+            if (cached != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+            seen = generation;
+        }
+        misses.increment();
+        Listing fresh = new Listing(Collections.unmodifiableList(search.get()), System.nanoTime());
+        synchronized (this) {
+            if (generation == seen) {
+                entries.put(key, fresh);
+            }
+        }
+        return fresh;
+    }
+
+    @Override
+    public void petAdded(Pet pet) {
+        invalidate(pet, pet.getStatus(), null);
+    }
+
+    @Override
+    public void statusChanged(Pet pet, Pet.AdoptionStatus oldStatus) {
+        invalidate(pet, oldStatus, pet.getStatus());
+    }
+
+    // Drops the entries that listed the pet before the change or would list it after
+    private synchronized void invalidate(Pet pet, Pet.AdoptionStatus before, Pet.AdoptionStatus after) {
+        generation++;
+        if (entries.isEmpty()) {
+            return;
+        }
+        String species = Vocabulary.SPECIES.key(pet.getSpeciesCode());
+        int age = pet.getAge();
+        entries.keySet().removeIf(key -> key.matches(species, age, before) || after != null && key.matches(species, age, after));
+    }
+
+    synchronized int size() { return entries.size(); }
+    long hits() { return hits.sum(); }
+    long misses() { return misses.sum(); }
+
+    // Share of lookups answered from the cache, in percent
+    long hitPercent() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : hit * 100 / total;
+    }
+
+    public void appendPrometheus(StringBuilder sb) {
+        sb.append("# HELP pawfect_search_cache_lookups_total Search cache lookups by result\n");
+        sb.append("# TYPE pawfect_search_cache_lookups_total counter\n");
+        sb.append("pawfect_search_cache_lookups_total{result=\"hit\"} ").append(hits.sum()).append('\n');
+        sb.append("pawfect_search_cache_lookups_total{result=\"miss\"} ").append(misses.sum()).append('\n');
+        sb.append("# HELP pawfect_search_cache_evictions_total Search cache entries evicted for size or age\n");
+        sb.append("# TYPE pawfect_search_cache_evictions_total counter\n");
+        sb.append("pawfect_search_cache_evictions_total ").append(evictions.sum()).append('\n');
+    }
+}
@@ -0,0 +1,291 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.io.*;
+
+// Pets partitioned by shelter. Each shelter owns its pet shard and its application queue
+// (admins belong to a shelter by name, see UserRegistry.getAdmins(shelter)). Lookups probe
+// the shards, and multi-shelter searches fan out in parallel and merge in shelter order.
+class ShelterNetwork implements PetRepository, ApplicationListener {
+    static final String DEFAULT = "Main";
+
+    static class Shelter {
+        final String name;
+        final PetRepository pets;
+        final ApplicationStore applications = ApplicationStore.view();
+
+        Shelter(String name, PetRepository pets) {
+            this.name = name;
+            this.pets = pets;
+        }
+    }
+
+    // Opens the pet shard for a shelter
+    interface ShardFactory {
+        PetRepository open(String shelter) throws IOException;
+    }
+
+    private final ShardFactory factory;
+    private final ConcurrentHashMap<String, Shelter> byName = new ConcurrentHashMap<>();
+    private final List<Shelter> shelters = new CopyOnWriteArrayList<>();
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    ShelterNetwork(ShardFactory factory) throws IOException {
+        this.factory = factory;
+        open(DEFAULT);
+    }
+
+    // Gets a shelter, opening its shard the first time
+    public Shelter open(String name) throws IOException {
+        Shelter shelter = byName.get(PetCatalog.normalize(name));
+        if (shelter != null) {
+            return shelter;
+        }
+        synchronized (this) {
+            shelter = byName.get(PetCatalog.normalize(name));
+            if (shelter == null) {
+                shelter = new Shelter(name.trim(), factory.open(name.trim()));
+                for (CatalogListener listener : listeners) {
+                    shelter.pets.addListener(listener);
+                }
+                shelters.add(shelter);
+                byName.put(PetCatalog.normalize(name), shelter);
+            }
+            return shelter;
+        }
+    }
+
+    public Shelter shelter(String name) {
+        try {
+            return open(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String of(AdminUser admin) {
+        return admin == null ? DEFAULT : admin.getShelter();
+    }
+
+    public List<Shelter> getShelters() {
+        return shelters;
+    }
+
+    // The shelter whose shard holds the pet, or null
+    public Shelter shelterFor(String uniqueId) {
+        for (Shelter shelter : shelters) {
+            if (shelter.pets.containsId(uniqueId)) {
+                return shelter;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String shelterOf(String uniqueId) {
+        Shelter shelter = shelterFor(uniqueId);
+        return shelter == null ? DEFAULT : shelter.name;
+    }
+
+    @Override
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+        for (Shelter shelter : shelters) {
+            shelter.pets.addListener(listener);
+        }
+    }
+
+    @Override
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+        for (Shelter shelter : shelters) {
+            shelter.pets.removeListener(listener);
+        }
+    }
+
+    @Override
+    public boolean addPet(Pet pet) {
+        return addPet(pet, DEFAULT);
+    }
+
+    // Ids are unique across shelters, so adds are serialized network-wide
+    @Override
+    public synchronized boolean addPet(Pet pet, String shelter) {
+        return !containsId(pet.getUniqueId()) && shelter(shelter).pets.addPet(pet);
+    }
+
+    @Override
+    public List<Pet> addPets(List<Pet> pets) {
+        return addPets(pets, DEFAULT);
+    }
+
+    @Override
+    public synchronized List<Pet> addPets(List<Pet> pets, String shelter) {
+        List<Pet> fresh = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            if (!containsId(pet.getUniqueId())) {
+                fresh.add(pet);
+            }
+        }
+        return shelter(shelter).pets.addPets(fresh);
+    }
+
+    @Override
+    public Pet getPet(String uniqueId) {
+        for (Shelter shelter : shelters) {
+            Pet pet = shelter.pets.getPet(uniqueId);
+            if (pet != null) {
+                return pet;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsId(String uniqueId) {
+        return shelterFor(uniqueId) != null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shelter shelter : shelters) {
+            size += shelter.pets.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int count(Pet.AdoptionStatus status) {
+        int count = 0;
+        for (Shelter shelter : shelters) {
+            count += shelter.pets.count(status);
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<Pet> getAllPets() {
+        return () -> new Iterator<Pet>() {
+            private final Iterator<Shelter> next = shelters.iterator();
+            private Iterator<Pet> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && next.hasNext()) {
+                    current = next.next().pets.getAllPets().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Pet next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public List<Pet> findByStatus(Pet.AdoptionStatus status) {
+        return fanOut(pets -> pets.findByStatus(status));
+    }
+
+    @Override
+    public List<Pet> findByBreed(String breed) {
+        return fanOut(pets -> pets.findByBreed(breed));
+    }
+
+    @Override
+    public Pet findByName(String name, Pet.AdoptionStatus status) {
+        for (Shelter shelter : shelters) {
+            Pet pet = shelter.pets.findByName(name, status);
+            if (pet != null) {
+                return pet;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Pet> search(String species, int maxAge, Pet.AdoptionStatus status) {
+        return fanOut(pets -> pets.search(species, maxAge, status));
+    }
+
+    // Every shard pages from the same cursor; the first limit of the merged pages make this page
+    @Override
+    public Page<Pet> page(Pet.AdoptionStatus status, PetOrder order, String cursor, int limit) {
+        List<Pet> fetched = new ArrayList<>();
+        boolean more = false;
+        for (Shelter shelter : shelters) {
+            Page<Pet> part = shelter.pets.page(status, order, cursor, limit);
+            fetched.addAll(part.items);
+            more |= part.next != null;
+        }
+        fetched.sort(order::compare);
+        if (more && fetched.size() == limit) {
+            return new Page<>(fetched, order.cursor(fetched.get(limit - 1)));
+        }
+        return Page.of(fetched, limit, order::cursor);
+    }
+
+    // Runs the query on every shard (in parallel when there are several) and concatenates in shelter order
+    private List<Pet> fanOut(java.util.function.Function<PetRepository, List<Pet>> query) {
+        List<Shelter> snapshot = new ArrayList<>(shelters);
+        if (snapshot.size() == 1) {
+            return query.apply(snapshot.get(0).pets);
+        }
+        List<List<Pet>> parts = snapshot.parallelStream().map(shelter -> query.apply(shelter.pets)).collect(Collectors.toList());
+        int total = 0;
+        for (List<Pet> part : parts) {
+            total += part.size();
+        }
+        List<Pet> merged = new ArrayList<>(total);
+        for (List<Pet> part : parts) {
+            merged.addAll(part);
+        }
+        return merged;
+    }
+
+    // Applications follow their pet into the owning shelter's queue
+    @Override
+    public void applicationAdded(AdoptionApplication app) {
+        Shelter shelter = shelterFor(app.getPet().getUniqueId());
+        if (shelter != null) {
+            shelter.applications.add(app);
+        }
+    }
+
+    @Override
+    public void applicationStatusChanged(AdoptionApplication app, AdoptionApplication.ApplicationStatus oldStatus) {
+        Shelter shelter = shelterFor(app.getPet().getUniqueId());
+        if (shelter != null) {
+            shelter.applications.statusChanged(app, oldStatus);
+        }
+    }
+
+    @Override
+    public void applicationsArchived(Collection<AdoptionApplication> apps) {
+        for (Shelter shelter : shelters) {
+            shelter.applications.removeAll(apps);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Shelter shelter : shelters) {
+            try {
+                shelter.pets.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
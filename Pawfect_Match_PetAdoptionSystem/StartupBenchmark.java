@@ -0,0 +1,105 @@
+import java.util.*;
+import java.util.stream.Collectors;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Cold start benchmark: java PawfectMatch --bench-startup [pet counts...]
+// Saves a snapshot with that many pets across four shelters, a user per 10 pets and an
+// application per 20, then times PersistentStore.restore() into empty structures.
+class StartupBenchmark {
+    private static final String[] SHELTERS = {"Main", "North", "South", "East"};
+    private static final int LOADS = 3;
+
+    public static void run(String[] sizes) throws IOException {
+        int[] counts = sizes.length > 0 ? new int[sizes.length] : new int[] {100_000, 1_000_000};
+        for (int i = 0; i < sizes.length; i++) {
+            counts[i] = Integer.parseInt(sizes[i].replace("_", ""));
+        }
+        System.out.println("pets         records      snapshot MB   first ms   best ms    records/s");
+        for (int count : counts) {
+            Path dir = Files.createTempDirectory("pawfect-startup");
+            try {
+                long records = save(dir, count);
+                long bytes = Files.size(dir.resolve("snapshot.bin"));
+                long first = 0;
+                long best = Long.MAX_VALUE;
+                for (int load = 0; load < LOADS; load++) {
+                    System.gc();
+                    long elapsed = load(dir, count);
+                    first = load == 0 ? elapsed : first;
+                    best = Math.min(best, elapsed);
+                }
+                System.out.println(String.format("%-12d %-12d %-13.1f %-10d %-10d %.0f", count, records,
+                    bytes / 1e6, first / 1_000_000, best / 1_000_000, records / (best / 1e9)));
+            } finally {
+                try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+                    for (Path file : files.collect(Collectors.toList())) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(dir);
+            }
+        }
+    }
+
+    private static long save(Path dir, int count) throws IOException {
+        UserRegistry users = new UserRegistry();
+        ShelterNetwork catalog = new ShelterNetwork(shelter -> new PetCatalog());
+        AdoptionEngine engine = new AdoptionEngine();
+        PersistentStore store = new PersistentStore(dir, users, catalog, engine);
+        store.restore();
+        PasswordHasher.Credential credential = PasswordHasher.create("pw", 1);
+        AdminUser[] admins = new AdminUser[SHELTERS.length];
+        for (int s = 0; s < SHELTERS.length; s++) {
+            admins[s] = new AdminUser("admin" + s, credential, "admin" + s + "@mail.com", SHELTERS[s]);
+            users.addAdmin(admins[s]);
+            catalog.open(SHELTERS[s]);
+        }
+        RegularUser[] regulars = new RegularUser[Math.max(1, count / 10)];
+        for (int i = 0; i < regulars.length; i++) {
+            regulars[i] = new RegularUser("user" + i, credential, "user" + i + "@mail.com");
+            users.registerUser(regulars[i]);
+        }
+        Random data = new Random(42);
+        List<Pet> pets = new ArrayList<>(count);
+        for (int s = 0; s < SHELTERS.length; s++) {
+            List<Pet> shelterPets = new ArrayList<>();
+            for (int i = s; i < count; i += SHELTERS.length) {
+                Pet pet = PawfectBench.randomPet(data, i);
+                shelterPets.add(pet);
+                admins[s].addPet(pet);
+            }
+            catalog.addPets(shelterPets, SHELTERS[s]);
+            pets.addAll(shelterPets);
+        }
+        int applications = 0;
+        for (int i = 0; i < count; i += 20) {
+            AdoptionApplication app = engine.apply(regulars[data.nextInt(regulars.length)], pets.get(i));
+            if (app != null) {
+                applications++;
+                if (data.nextInt(4) == 0) {
+                    engine.approve(app);
+                }
+            }
+        }
+        store.writeSnapshot();
+        store.close();
+        return admins.length + regulars.length + count + applications;
+    }
+
+    private static long load(Path dir, int count) throws IOException {
+        UserRegistry users = new UserRegistry();
+        ShelterNetwork catalog = new ShelterNetwork(shelter -> new PetCatalog());
+        AdoptionEngine engine = new AdoptionEngine();
+        PersistentStore store = new PersistentStore(dir, users, catalog, engine);
+        long start = System.nanoTime();
+        store.restore();
+        long elapsed = System.nanoTime() - start;
+        store.close();
+        if (catalog.size() != count) {
+            throw new IllegalStateException("restored " + catalog.size() + " of " + count + " pets");
+        }
+        return elapsed;
+    }
+}
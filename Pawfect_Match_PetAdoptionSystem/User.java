@@ -0,0 +1,34 @@
+import java.io.*;
+
+// inheritance
+abstract class User implements Authenticatable {
+    private String username;
+    private PasswordHasher.Credential credential;
+    private String email;
+
+    public User(String username, String password, String email) {
+        this(username, PasswordHasher.create(password), email);
+    }
+
+    User(String username, PasswordHasher.Credential credential, String email) {
+        this.username = username;
+        this.credential = credential;
+        this.email = email;
+    }
+
+    // Getters and setters
+    public String getUsername() { return username; }
+    public String getEmail() { return email; }
+    PasswordHasher.Credential getCredential() { return credential; }
+
+    public abstract void displayDashboard(PrintStream out);
+
+    public void displayDashboard() {
+        displayDashboard(System.out);
+    }
+
+    @Override
+    public boolean authenticate(String username, String password) {
+        return this.username.equals(username) && credential.matches(password);
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// User registry keyed by username: O(1) login lookup and duplicate checks
+class UserRegistry {
+    private final ConcurrentHashMap<String, RegularUser> regularUsers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AdminUser> adminUsers = new ConcurrentHashMap<>();
+    private final List<AdminUser> adminList = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, List<AdminUser>> adminsByShelter = new ConcurrentHashMap<>();
+    // checked when the username is unknown so failed logins cost the same as real ones
+    private final PasswordHasher.Credential dummyCredential = PasswordHasher.create("", PasswordHasher.DEFAULT_ITERATIONS);
+
+    public boolean isUsernameTaken(String username) {
+        return regularUsers.containsKey(username) || adminUsers.containsKey(username);
+    }
+
+    public boolean registerUser(RegularUser user) {
+        if (adminUsers.containsKey(user.getUsername())) {
+            return false;
+        }
+        return regularUsers.putIfAbsent(user.getUsername(), user) == null;
+    }
+
+    public boolean addAdmin(AdminUser admin) {
+        if (regularUsers.containsKey(admin.getUsername())
+                || adminUsers.putIfAbsent(admin.getUsername(), admin) != null) {
+            return false;
+        }
+        adminList.add(admin);
+        adminsByShelter.computeIfAbsent(PetCatalog.normalize(admin.getShelter()), k -> new CopyOnWriteArrayList<>()).add(admin);
+        return true;
+    }
+
+    // Admins of one shelter in the order they were added; the first one receives new applications
+    public List<AdminUser> getAdmins(String shelter) {
+        return adminsByShelter.getOrDefault(PetCatalog.normalize(shelter), Collections.emptyList());
+    }
+
+    public AdminUser primaryAdmin(String shelter) {
+        List<AdminUser> admins = getAdmins(shelter);
+        return admins.isEmpty() ? null : admins.get(0);
+    }
+
+    public RegularUser loginUser(String username, String password) {
+        return check(regularUsers.get(username), username, password);
+    }
+
+    public AdminUser loginAdmin(String username, String password) {
+        return check(adminUsers.get(username), username, password);
+    }
+
+    private <T extends User> T check(T user, String username, String password) {
+        if (user == null) {
+            dummyCredential.matches(password);
+            return null;
+        }
+        return user.authenticate(username, password) ? user : null;
+    }
+
+    public RegularUser getUser(String username) { return regularUsers.get(username); }
+    public AdminUser getAdmin(String username) { return adminUsers.get(username); }
+    public Collection<RegularUser> getUsers() { return regularUsers.values(); }
+    public List<AdminUser> getAdmins() { return adminList; }
+    public int userCount() { return regularUsers.size(); }
+}
@@ -0,0 +1,88 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Canonical species and breed terms. "Dog", "dog" and "DOG " are one term with one int code,
+// assigned the first time the term is written; the first spelling seen is the one displayed.
+// Codes are never reused, so they can index flat arrays.
+final class Vocabulary {
+    static final Vocabulary SPECIES = new Vocabulary();
+    static final Vocabulary BREEDS = new Vocabulary();
+
+    // By key only: caching every raw spelling as well would grow without bound on user input
+    // ("Dog", "dog ", "DOG", ...), so other spellings pay for key() on each lookup instead
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile String[] keys = new String[16];
+    private volatile int size;
+
+    // Trimmed, lower case, inner whitespace runs collapsed to one space
+    static String key(String term) {
+        if (term == null) {
+            return "";
+        }
+        String trimmed = term.trim();
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            } else if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                sb.append(' ');
+            }
+        }
+        return sb.toString().trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Contains test against a matching() result; codes added after it was built never match
+    static boolean contains(boolean[] matching, int code) {
+        return code >= 0 && code < matching.length && matching[code];
+    }
+
+    int code(String term) {
+        int code = find(term);
+        return code >= 0 ? code : intern(term == null ? "" : term);
+    }
+
+    private synchronized int intern(String spelling) {
+        String key = key(spelling);
+        Integer code = codes.get(key);
+        if (code == null) {
+            code = size;
+            if (code == names.length) {
+                keys = Arrays.copyOf(keys, code * 2);
+                names = Arrays.copyOf(names, code * 2);
+            }
+            keys[code] = key;
+            names[code] = spelling.trim();
+            size = code + 1;   // publishes the slot before the code is handed out
+            codes.put(key, code);
+        }
+        return code;
+    }
+
+    // Lookup without interning; -1 for a term nobody has written. A term already in key form
+    // (the usual case for lookups by key) skips building the key.
+    int find(String term) {
+        Integer code = codes.get(term == null ? "" : term);
+        if (code == null) {
+            code = codes.get(key(term));
+        }
+        return code == null ? -1 : code;
+    }
+
+    String name(int code) { return names[code]; }
+    String key(int code) { return keys[code]; }
+    int size() { return size; }
+
+    // Codes whose key contains the filter's key; a blank filter matches every code
+    boolean[] matching(String filter) {
+        String wanted = key(filter);
+        int n = size;
+        String[] all = keys;
+        boolean[] matches = new boolean[n];
+        for (int code = 0; code < n; code++) {
+            matches[code] = wanted.isEmpty() || all[code].contains(wanted);
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,130 @@
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The pet status machine (AVAILABLE -> PENDING -> ADOPTED or back to AVAILABLE), alone and under races
+class AdoptionStateTest {
+    private static final PasswordHasher.Credential CREDENTIAL = PasswordHasher.create("pw", 1);
+
+    static void register(Map<String, PawfectTests.Test> tests) {
+        tests.put("adoption: pet transitions outside the state machine are refused", AdoptionStateTest::transitions);
+        tests.put("adoption: apply reserves, reject and expire release, approve adopts", AdoptionStateTest::lifecycle);
+        tests.put("adoption: approving one of several restored applications rejects the others", AdoptionStateTest::autoReject);
+        tests.put("adoption: racing threads adopt each pet at most once", AdoptionStateTest::races);
+    }
+
+    static void transitions() {
+        Pet pet = new Pet("Rex", "T1", "Dog", 5, "Boxer");
+        refused(pet, Pet.AdoptionStatus.AVAILABLE, Pet.AdoptionStatus.ADOPTED);
+        PawfectTests.check(!pet.transition(Pet.AdoptionStatus.PENDING, Pet.AdoptionStatus.ADOPTED), "CAS from a stale status won");
+        PawfectTests.check(pet.transition(Pet.AdoptionStatus.AVAILABLE, Pet.AdoptionStatus.PENDING), "reserving failed");
+        PawfectTests.check(!pet.transition(Pet.AdoptionStatus.AVAILABLE, Pet.AdoptionStatus.PENDING), "reserved twice");
+        PawfectTests.check(pet.transition(Pet.AdoptionStatus.PENDING, Pet.AdoptionStatus.ADOPTED), "adopting failed");
+        refused(pet, Pet.AdoptionStatus.ADOPTED, Pet.AdoptionStatus.AVAILABLE);
+        refused(pet, Pet.AdoptionStatus.ADOPTED, Pet.AdoptionStatus.PENDING);
+        PawfectTests.checkEquals(Pet.AdoptionStatus.ADOPTED, pet.getStatus(), "status");
+    }
+
+    static void lifecycle() {
+        AdoptionEngine engine = new AdoptionEngine();
+        RegularUser amy = user("amy");
+        RegularUser bob = user("bob");
+        Pet rex = new Pet("Rex", "T1", "Dog", 5, "Boxer");
+
+        AdoptionApplication first = engine.apply(amy, rex);
+        PawfectTests.check(first != null, "apply failed");
+        PawfectTests.checkEquals(Pet.AdoptionStatus.PENDING, rex.getStatus(), "after applying");
+        PawfectTests.check(engine.apply(bob, rex) == null, "a reserved pet took a second application");
+        PawfectTests.check(engine.reject(first), "reject failed");
+        PawfectTests.check(!engine.reject(first), "rejected twice");
+        PawfectTests.checkEquals(Pet.AdoptionStatus.AVAILABLE, rex.getStatus(), "after the rejection");
+
+        AdoptionApplication second = engine.apply(bob, rex);
+        PawfectTests.check(engine.expire(second), "expire failed");
+        PawfectTests.checkEquals(AdoptionApplication.ApplicationStatus.EXPIRED, second.getStatus(), "expired application");
+        PawfectTests.checkEquals(Pet.AdoptionStatus.AVAILABLE, rex.getStatus(), "after expiry");
+
+        AdoptionApplication third = engine.apply(amy, rex);
+        PawfectTests.check(engine.approve(third).approved, "approve failed");
+        PawfectTests.checkEquals(Pet.AdoptionStatus.ADOPTED, rex.getStatus(), "after approval");
+        PawfectTests.check(third.getDecidedAt() != null, "no decision time");
+        PawfectTests.check(!engine.approve(third).approved, "approved twice");
+        PawfectTests.check(!engine.reject(third), "rejected after approval");
+        PawfectTests.check(engine.apply(bob, rex) == null, "an adopted pet took an application");
+        PawfectTests.checkEquals(3, engine.getApplicationsFor(rex).size(), "applications kept");
+    }
+
+    static void autoReject() {
+        AdoptionEngine engine = new AdoptionEngine();
+        Pet rex = new Pet("Rex", "T1", "Dog", 5, "Boxer");
+        List<AdoptionApplication> apps = new ArrayList<>();
+        for (String name : new String[] {"amy", "bob", "cy"}) {
+            AdoptionApplication app = new AdoptionApplication(900_000 + apps.size(), user(name), rex, Instant.now(),
+                AdoptionApplication.ApplicationStatus.PENDING);
+            engine.restore(app);
+            apps.add(app);
+        }
+        engine.reconcile();
+        PawfectTests.checkEquals(Pet.AdoptionStatus.PENDING, rex.getStatus(), "restored pet with pending applications");
+
+        AdoptionEngine.Decision decision = engine.approve(apps.get(1));
+        PawfectTests.check(decision.approved, "approve failed");
+        PawfectTests.checkEquals(Arrays.asList(apps.get(0), apps.get(2)), decision.autoRejected, "rejected with it");
+        for (AdoptionApplication other : decision.autoRejected) {
+            PawfectTests.checkEquals(AdoptionApplication.ApplicationStatus.REJECTED, other.getStatus(), "other application");
+        }
+        PawfectTests.checkEquals(Pet.AdoptionStatus.ADOPTED, rex.getStatus(), "after approval");
+        PawfectTests.check(!engine.getStore().hasPending(), "applications still pending");
+    }
+
+    static void races() throws InterruptedException {
+        AdoptionEngine engine = new AdoptionEngine();
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            pets.add(new Pet("Pet" + i, "R" + i, "Dog", 1, "Mixed"));
+        }
+        int threads = 8;
+        AtomicInteger filed = new AtomicInteger();
+        AdoptionStress.runThreads(threads, t -> {
+            RegularUser applicant = user("racer" + t);
+            for (Pet pet : pets) {
+                if (engine.apply(applicant, pet) != null) {
+                    filed.incrementAndGet();
+                }
+            }
+        });
+        PawfectTests.checkEquals(pets.size(), filed.get(), "applications filed (one per pet)");
+
+        // every thread tries to approve or reject every application; exactly one decision sticks
+        List<AdoptionApplication> all = engine.getApplications();
+        AtomicInteger approvals = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        AdoptionStress.runThreads(threads, t -> {
+            for (AdoptionApplication app : all) {
+                if ((app.getId() + t) % 3 == 0 ? engine.reject(app) : engine.approve(app).approved) {
+                    ((app.getId() + t) % 3 == 0 ? rejections : approvals).incrementAndGet();
+                }
+            }
+        });
+        PawfectTests.checkEquals(all.size(), approvals.get() + rejections.get(), "decisions that stuck");
+        PawfectTests.checkEquals(null, AdoptionStress.verify(engine, pets), "broken invariant");
+        int adopted = 0;
+        for (Pet pet : pets) {
+            adopted += pet.getStatus() == Pet.AdoptionStatus.ADOPTED ? 1 : 0;
+        }
+        PawfectTests.checkEquals(approvals.get(), adopted, "adopted pets");
+    }
+
+    private static void refused(Pet pet, Pet.AdoptionStatus from, Pet.AdoptionStatus to) {
+        try {
+            pet.transition(from, to);
+            throw new AssertionError(from + " -> " + to + " was allowed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static RegularUser user(String name) {
+        return new RegularUser(name, CREDENTIAL, name + "@mail.com");
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Bulk CSV/JSON import with per-row validation, and export that imports back unchanged
+class ImportExportTest {
+    static void register(Map<String, PawfectTests.Test> tests) {
+        tests.put("import: CSV rows are validated one by one and good rows still load", ImportExportTest::csvValidation);
+        tests.put("import: JSON objects with escapes, numbers and nulls", ImportExportTest::json);
+        tests.put("import: a CSV without a required column is refused", ImportExportTest::missingColumn);
+        tests.put("export: CSV and JSON exports import back into an empty catalog unchanged", ImportExportTest::roundTrip);
+    }
+
+    static void csvValidation() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try (TestWorld world = new TestWorld(dir)) {
+            AdminUser admin = world.admin("keil");
+            world.service.addPet(admin, "Rex", "Dog", 5, "German Shepherd");
+            String taken = world.catalog.getAllPets().iterator().next().getUniqueId();
+            Path csv = dir.resolve("pets.csv");
+            Files.write(csv, Arrays.asList(
+                "Name,Species,Age,Breed,Id,Status",
+                "Bella,Dog,2,\"Golden, Retriever\",,",
+                ",Cat,2,Siamese,,",
+                "Coco,Cat,two,Siamese,,",
+                "Duke,Dog,99,Boxer,,",
+                "Echo,Cat,1,Persian,,PENDING",
+                "Fido,Dog,3,Beagle," + taken + ",",
+                "",
+                "Gus,Dog,7,Pug,G7,adopted"), StandardCharsets.UTF_8);
+            PetImporter.Result result = world.service.importPets(csv, admin);
+
+            PawfectTests.checkEquals(2, result.imported, "imported");
+            PawfectTests.checkEquals(5, result.rejected, "rejected");
+            String errors = String.join("\n", result.errors);
+            for (String expected : new String[] {"line 3: missing name", "line 4: invalid age 'two'", "line 5: age 99",
+                    "line 6: status PENDING", "line 7: pet id " + taken + " already exists"}) {
+                PawfectTests.check(errors.contains(expected), "no '" + expected + "' in\n" + errors);
+            }
+            Pet bella = world.service.findAvailable("Bella");
+            PawfectTests.check(bella != null, "Bella was not imported");
+            PawfectTests.checkEquals("Golden, Retriever", bella.getBreed(), "quoted breed");
+            PawfectTests.checkEquals(Pet.AdoptionStatus.ADOPTED, world.catalog.getPet("G7").getStatus(), "Gus's status");
+            PawfectTests.check(admin.getPetIds().contains("G7"), "the importing admin does not own Gus");
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    static void json() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try (TestWorld world = new TestWorld(dir)) {
+            Path json = dir.resolve("pets.json");
+            Files.write(json, Arrays.asList(
+                "[",
+                "  {\"name\": \"Bo \\\"the Brave\\\"\", \"species\": \"Dog\", \"age\": 4, \"breed\": \"Mixed\", \"id\": null},",
+                "  {\"name\": \"Caf\\u00e9\", \"species\": \"Cat\", \"age\": 1, \"breed\": \"Persian\", \"status\": \"ADOPTED\"},",
+                "  {\"name\": \"Nope\", \"species\": \"Dog\", \"age\": -1, \"breed\": \"Mixed\"}",
+                "]"), StandardCharsets.UTF_8);
+            PetImporter.Result result = world.service.importPets(json, world.admin("keil"));
+
+            PawfectTests.checkEquals(2, result.imported, "imported");
+            PawfectTests.checkEquals(1, result.rejected, "rejected");
+            PawfectTests.check(result.errors.get(0).startsWith("line 4: age -1"), "error: " + result.errors);
+            PawfectTests.check(world.service.findAvailable("Bo \"the Brave\"") != null, "escaped quotes were not decoded");
+            PawfectTests.checkEquals(Arrays.asList("Bo \"the Brave\"", "Café"), sortedNames(world), "pets");
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    static void missingColumn() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try (TestWorld world = new TestWorld(dir)) {
+            Path csv = dir.resolve("pets.csv");
+            Files.write(csv, Arrays.asList("name,species,age", "Rex,Dog,5"), StandardCharsets.UTF_8);
+            try {
+                world.service.importPets(csv, null);
+                throw new AssertionError("imported a file without a breed column");
+            } catch (IOException e) {
+                PawfectTests.check(e.getMessage().contains("'breed'"), "message: " + e.getMessage());
+            }
+            PawfectTests.checkEquals(0, world.catalog.size(), "pets");
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    static void roundTrip() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try {
+            List<String> original;
+            try (TestWorld world = new TestWorld(dir.resolve("a"))) {
+                AdminUser admin = world.admin("keil");
+                world.service.addPet(admin, "Rex", "Dog", 5, "German Shepherd");
+                world.service.addPet(admin, "Pip, Jr.", "Cat", 0, "Maine \"Coon\"");
+                Pet luna = world.service.addPet(admin, "Luna", "Cat", 2, "Siamese");
+                RegularUser amy = world.service.register("amy", "pw", "amy@mail.com");
+                world.service.approve(world.service.apply(amy, luna));
+                original = rows(world);
+                PawfectTests.checkEquals(3, world.service.exportPets(dir.resolve("pets.csv")), "exported to CSV");
+                PawfectTests.checkEquals(3, world.service.exportPets(dir.resolve("pets.json")), "exported to JSON");
+            }
+            for (String file : new String[] {"pets.csv", "pets.json"}) {
+                try (TestWorld world = new TestWorld(dir.resolve("from-" + file))) {
+                    PetImporter.Result result = world.service.importPets(dir.resolve(file), null);
+                    PawfectTests.checkEquals(Collections.emptyList(), result.errors, file + " errors");
+                    PawfectTests.checkEquals(original, rows(world), "pets imported from " + file);
+                }
+            }
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    private static List<String> rows(TestWorld world) {
+        List<String> rows = new ArrayList<>();
+        for (Pet pet : world.catalog.getAllPets()) {
+            rows.add(pet.getUniqueId() + "|" + pet.getName() + "|" + pet.getSpecies() + "|" + pet.getAge() + "|"
+                + pet.getBreed() + "|" + pet.getStatus());
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static List<String> sortedNames(TestWorld world) {
+        List<String> names = new ArrayList<>();
+        for (Pet pet : world.catalog.getAllPets()) {
+            names.add(pet.getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+}
@@ -0,0 +1,143 @@
+import java.nio.file.Path;
+import java.util.*;
+
+// Cursor paging: every item exactly once, in order, across shelters and changes between pages
+class PagingTest {
+    static void register(Map<String, PawfectTests.Test> tests) {
+        tests.put("paging: pets by id across shelters, P2 before P10, each pet once", PagingTest::petsById);
+        tests.put("paging: pets by age, and pets reserved between pages drop out", PagingTest::petsByAge);
+        tests.put("paging: pending applications and histories in filing order", PagingTest::applications);
+        tests.put("paging: malformed cursors and cursors of another order are refused", PagingTest::badCursors);
+    }
+
+    static void petsById() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try (TestWorld world = new TestWorld(dir)) {
+            AdminUser main = world.admin("keil");
+            AdminUser north = new AdminUser("nora", "pw", "nora@mail.com", "North");
+            world.users.addAdmin(north);
+            world.catalog.open("North");
+            for (int i = 0; i < 23; i++) {
+                world.service.addPet(i % 3 == 0 ? north : main, "Pet" + i, "Dog", i % 7, "Mixed");
+            }
+            List<Pet> seen = all(world, PetOrder.ID, 4);
+            PawfectTests.checkEquals(23, seen.size(), "pets paged");
+            PawfectTests.checkEquals(23, new HashSet<>(seen).size(), "distinct pets paged");
+            List<String> ids = new ArrayList<>();
+            for (Pet pet : seen) {
+                ids.add(pet.getUniqueId());
+            }
+            PawfectTests.checkEquals("P1", ids.get(0), "first id");
+            PawfectTests.checkEquals("P2", ids.get(1), "second id");
+            PawfectTests.checkEquals("P10", ids.get(9), "tenth id");
+            for (int i = 1; i < ids.size(); i++) {
+                PawfectTests.check(PetOrder.compareIds(ids.get(i - 1), ids.get(i)) < 0, ids.get(i - 1) + " before " + ids.get(i));
+            }
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    static void petsByAge() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try (TestWorld world = new TestWorld(dir)) {
+            AdminUser admin = world.admin("keil");
+            RegularUser amy = world.service.register("amy", "pw", "amy@mail.com");
+            for (int i = 0; i < 20; i++) {
+                world.service.addPet(admin, "Pet" + i, "Cat", (i * 7) % 5, "Mixed");
+            }
+            Page<Pet> first = world.service.petPage(Pet.AdoptionStatus.AVAILABLE, PetOrder.AGE, null, 6);
+            PawfectTests.checkEquals(6, first.items.size(), "first page");
+            // reserve a pet the next pages would have shown
+            Page<Pet> peek = world.service.petPage(Pet.AdoptionStatus.AVAILABLE, PetOrder.AGE, first.next, 6);
+            Pet reserved = peek.items.get(2);
+            world.service.apply(amy, reserved);
+
+            List<Pet> seen = new ArrayList<>(first.items);
+            for (String cursor = first.next; cursor != null; ) {
+                Page<Pet> page = world.service.petPage(Pet.AdoptionStatus.AVAILABLE, PetOrder.AGE, cursor, 6);
+                seen.addAll(page.items);
+                cursor = page.next;
+            }
+            PawfectTests.checkEquals(19, seen.size(), "available pets paged");
+            PawfectTests.check(!seen.contains(reserved), "a reserved pet was listed as available");
+            for (int i = 1; i < seen.size(); i++) {
+                PawfectTests.check(PetOrder.AGE.compare(seen.get(i - 1), seen.get(i)) < 0, "age order at " + i);
+            }
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    static void applications() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try (TestWorld world = new TestWorld(dir)) {
+            AdminUser admin = world.admin("keil");
+            RegularUser amy = world.service.register("amy", "pw", "amy@mail.com");
+            RegularUser bob = world.service.register("bob", "pw", "bob@mail.com");
+            List<AdoptionApplication> filed = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                Pet pet = world.service.addPet(admin, "Pet" + i, "Dog", 1, "Mixed");
+                filed.add(world.service.apply(i % 2 == 0 ? amy : bob, pet));
+            }
+
+            Page<AdoptionApplication> page = world.service.pendingPage(admin, null, 5);
+            PawfectTests.checkEquals(filed.subList(0, 5), page.items, "first pending page");
+            world.service.approve(filed.get(6));   // decided before its page is read
+            page = world.service.pendingPage(admin, page.next, 5);
+            List<AdoptionApplication> expected = new ArrayList<>(filed.subList(5, 11));
+            expected.remove(filed.get(6));
+            PawfectTests.checkEquals(expected, page.items, "second pending page");
+            page = world.service.pendingPage(admin, page.next, 5);
+            PawfectTests.checkEquals(filed.subList(11, 12), page.items, "last pending page");
+            PawfectTests.checkEquals(null, page.next, "cursor after the last page");
+
+            List<AdoptionApplication> history = new ArrayList<>();
+            for (String cursor = null; ; ) {
+                Page<AdoptionApplication> part = world.service.historyPage(bob, cursor, 4);
+                history.addAll(part.items);
+                if ((cursor = part.next) == null) {
+                    break;
+                }
+            }
+            PawfectTests.checkEquals(Arrays.asList(filed.get(1), filed.get(3), filed.get(5), filed.get(7), filed.get(9),
+                filed.get(11)), history, "bob's history");
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    static void badCursors() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try (TestWorld world = new TestWorld(dir)) {
+            AdminUser admin = world.admin("keil");
+            for (int i = 0; i < 5; i++) {
+                world.service.addPet(admin, "Pet" + i, "Dog", i, "Mixed");
+            }
+            String byId = world.service.petPage(Pet.AdoptionStatus.AVAILABLE, PetOrder.ID, null, 2).next;
+            PawfectTests.check(byId != null, "no cursor for a partial page");
+            for (String cursor : new String[] {"not a cursor!", byId}) {
+                try {
+                    world.service.petPage(Pet.AdoptionStatus.AVAILABLE, PetOrder.AGE, cursor, 2);
+                    throw new AssertionError("accepted cursor " + cursor + " for the age order");
+                } catch (IllegalArgumentException e) {
+                    PawfectTests.checkEquals("Invalid cursor", e.getMessage(), "message");
+                }
+            }
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    private static List<Pet> all(TestWorld world, PetOrder order, int limit) {
+        List<Pet> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Pet> page = world.service.petPage(Pet.AdoptionStatus.AVAILABLE, order, cursor, limit);
+            PawfectTests.check(page.items.size() <= limit, "page of " + page.items.size() + " for limit " + limit);
+            seen.addAll(page.items);
+            cursor = page.next;
+        } while (cursor != null);
+        return seen;
+    }
+}
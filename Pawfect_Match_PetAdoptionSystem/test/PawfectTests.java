@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Behavior tests, run without a test framework (from Pawfect_Match_PetAdoptionSystem):
+//   javac -d out *.java test/*.java && java -cp out PawfectTests
+// Each test is a static method; a failed check throws AssertionError. Exits with status 1 on any failure.
+public class PawfectTests {
+    interface Test {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("pawfect.kdf.iterations", "1");   // before PasswordHasher loads; hashing is not under test
+        Map<String, Test> tests = new LinkedHashMap<>();
+        PersistenceTest.register(tests);
+        ImportExportTest.register(tests);
+        PagingTest.register(tests);
+        AdoptionStateTest.register(tests);
+        PetSearchIndexTest.register(tests);
+
+        int failed = 0;
+        for (Map.Entry<String, Test> test : tests.entrySet()) {
+            if (args.length > 0 && !test.getKey().contains(args[0])) {
+                continue;
+            }
+            try {
+                test.getValue().run();
+                System.out.println("ok    " + test.getKey());
+            } catch (Throwable e) {
+                failed++;
+                System.out.println("FAIL  " + test.getKey() + ": " + e);
+                e.printStackTrace(System.out);
+            }
+        }
+        System.out.println(failed == 0 ? "All tests passed" : failed + " test(s) failed");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    static void checkEquals(Object expected, Object actual, String what) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    static List<String> names(List<Pet> pets) {
+        List<String> names = new ArrayList<>();
+        for (Pet pet : pets) {
+            names.add(pet.getName());
+        }
+        return names;
+    }
+
+    static Path tempDir() throws IOException {
+        Path dir = Files.createTempDirectory("pawfect-test");
+        dir.toFile().deleteOnExit();
+        return dir;
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.walk(dir)) {
+            List<Path> all = new ArrayList<>();
+            files.forEach(all::add);
+            Collections.reverse(all);   // children before their directory
+            for (Path file : all) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Saved state survives a restart: from the event log alone, and from a snapshot plus the log after it
+class PersistenceTest {
+    static void register(Map<String, PawfectTests.Test> tests) {
+        tests.put("persistence: replaying the event log restores users, pets, statuses and applications",
+            PersistenceTest::logReplay);
+        tests.put("persistence: a snapshot plus the log tail restores the same state, and the log is compacted",
+            PersistenceTest::snapshotAndTail);
+    }
+
+    static void logReplay() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        try {
+            try (TestWorld world = new TestWorld(dir)) {
+                populate(world, dir);
+            }
+            try (TestWorld world = new TestWorld(dir)) {
+                verify(world);
+            }
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    static void snapshotAndTail() throws Exception {
+        Path dir = PawfectTests.tempDir();
+        Path log = dir.resolve("events.log");
+        try {
+            try (TestWorld world = new TestWorld(dir)) {
+                populate(world, dir);
+                long before = Files.size(log);
+                world.store.writeSnapshot();
+                PawfectTests.check(Files.size(log) < before, "log not compacted: " + Files.size(log) + " >= " + before);
+
+                // changes after the snapshot only live in the log
+                AdminUser admin = world.users.getAdmin("keil");
+                world.service.addPet(admin, "Delta", "Rabbit", 1, "Lop");
+                RegularUser bob = world.service.register("bob", "pw", "bob@mail.com");
+                AdoptionApplication app = world.service.apply(bob, world.service.findAvailable("Delta"));
+                PawfectTests.check(world.service.reject(app), "reject failed");
+            }
+            try (TestWorld world = new TestWorld(dir)) {
+                verify(world);
+                Pet delta = world.service.findAvailable("Delta");
+                PawfectTests.check(delta != null, "Delta is not back on the market after the rejection");
+                PawfectTests.checkEquals(1, world.engine.getApplicationsFor(delta).size(), "applications for Delta");
+                PawfectTests.checkEquals(AdoptionApplication.ApplicationStatus.REJECTED,
+                    world.engine.getApplicationsFor(delta).get(0).getStatus(), "Delta's application");
+                world.store.writeSnapshot();
+            }
+            // a snapshot taken after a restore restores again
+            try (TestWorld world = new TestWorld(dir)) {
+                verify(world);
+                PawfectTests.check(world.users.getUser("bob") != null, "bob was lost");
+            }
+        } finally {
+            PawfectTests.delete(dir);
+        }
+    }
+
+    // keil owns Rex, Luna and Milo (one of each status) plus two imported pets, one of them adopted
+    private static void populate(TestWorld world, Path dir) throws Exception {
+        AdminUser admin = world.admin("keil");
+        RegularUser amy = world.service.register("amy", "secret", "amy@mail.com");
+        Pet rex = world.service.addPet(admin, "Rex", "Dog", 5, "German Shepherd");
+        Pet luna = world.service.addPet(admin, "Luna", "Cat", 2, "Siamese");
+        world.service.addPet(admin, "Milo", "Dog", 1, "Beagle");
+        PawfectTests.check(world.service.apply(amy, rex) != null, "apply for Rex failed");
+        AdoptionApplication lunaApp = world.service.apply(amy, luna);
+        PawfectTests.check(world.service.approve(lunaApp).approved, "approving Luna failed");
+
+        Path csv = dir.resolve("import.csv");
+        Files.write(csv, Arrays.asList("name,species,age,breed,id,status", "Alpha,Dog,3,Labrador,X1,ADOPTED",
+            "Beta,Cat,4,Persian,X2,"));
+        PetImporter.Result result = world.service.importPets(csv, admin);
+        PawfectTests.checkEquals(2, result.imported, "imported");
+    }
+
+    private static void verify(TestWorld world) {
+        PawfectTests.check(world.service.login("amy", "secret") != null, "amy cannot log in");
+        PawfectTests.check(world.service.login("amy", "wrong") == null, "amy logs in with a wrong password");
+        PawfectTests.check(world.service.loginAdmin("keil", "pw") != null, "keil cannot log in");
+        Map<String, Pet.AdoptionStatus> expected = new LinkedHashMap<>();
+        expected.put("Rex", Pet.AdoptionStatus.PENDING);
+        expected.put("Luna", Pet.AdoptionStatus.ADOPTED);
+        expected.put("Milo", Pet.AdoptionStatus.AVAILABLE);
+        expected.put("Alpha", Pet.AdoptionStatus.ADOPTED);
+        expected.put("Beta", Pet.AdoptionStatus.AVAILABLE);
+        Map<String, Pet> byName = new HashMap<>();
+        for (Pet pet : world.catalog.getAllPets()) {
+            byName.put(pet.getName(), pet);
+        }
+        for (Map.Entry<String, Pet.AdoptionStatus> pet : expected.entrySet()) {
+            PawfectTests.check(byName.containsKey(pet.getKey()), pet.getKey() + " was not restored");
+            PawfectTests.checkEquals(pet.getValue(), byName.get(pet.getKey()).getStatus(), pet.getKey() + "'s status");
+        }
+        PawfectTests.checkEquals("Labrador", byName.get("Alpha").getBreed(), "Alpha's breed");
+        PawfectTests.checkEquals(3, byName.get("Alpha").getAge(), "Alpha's age");
+        PawfectTests.check(world.users.getAdmin("keil").getPetIds().containsAll(
+            Arrays.asList(byName.get("Rex").getUniqueId(), "X1", "X2")), "keil's pets: " + world.users.getAdmin("keil").getPetIds());
+
+        RegularUser amy = world.users.getUser("amy");
+        List<AdoptionApplication> history = world.service.historyPage(amy, null, 10).items;
+        PawfectTests.checkEquals(2, history.size(), "amy's applications");
+        PawfectTests.checkEquals("Rex", history.get(0).getPet().getName(), "first application");
+        PawfectTests.checkEquals(AdoptionApplication.ApplicationStatus.PENDING, history.get(0).getStatus(), "Rex's application");
+        PawfectTests.checkEquals(AdoptionApplication.ApplicationStatus.APPROVED, history.get(1).getStatus(), "Luna's application");
+        PawfectTests.check(history.get(1).getDecidedAt() != null, "Luna's decision time was lost");
+    }
+}
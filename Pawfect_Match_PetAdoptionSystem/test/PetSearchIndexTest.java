@@ -0,0 +1,96 @@
+import java.util.*;
+
+// Trigram keyword search: typo tolerance, short queries, ranking and availability
+class PetSearchIndexTest {
+    static void register(Map<String, PawfectTests.Test> tests) {
+        tests.put("search: misspelled names, species and breeds still match", PetSearchIndexTest::typos);
+        tests.put("search: short queries match by prefix or one edit", PetSearchIndexTest::shortQueries);
+        tests.put("search: closer matches rank first and the limit holds", PetSearchIndexTest::ranking);
+        tests.put("search: only available pets are found, following status changes", PetSearchIndexTest::availability);
+        tests.put("search: one-edit check covers insert, delete, substitute and swap", PetSearchIndexTest::oneEdit);
+    }
+
+    static void typos() {
+        PetSearchIndex index = seeded(new PetCatalog());
+        PawfectTests.checkEquals(Arrays.asList("Max"), PawfectTests.names(index.search("labrdor", 10)), "labrdor");
+        PawfectTests.checkEquals("Rex", first(index, "germn shepard"), "germn shepard");
+        PawfectTests.checkEquals("Mingming", first(index, "mingmign"), "mingmign");
+        PawfectTests.checkEquals("Nina", first(index, "persain"), "persain");
+        PawfectTests.checkEquals(Collections.emptyList(), index.search("zzzzqqq", 10), "nonsense");
+        PawfectTests.checkEquals(Collections.emptyList(), index.search("   ", 10), "blank");
+    }
+
+    static void shortQueries() {
+        PetSearchIndex index = seeded(new PetCatalog());
+        PawfectTests.checkEquals(Arrays.asList("Max"), PawfectTests.names(index.search("mx", 10)), "mx");
+        PawfectTests.checkEquals(Arrays.asList("Bantay", "Max", "Rex"), sorted(index.search("dgo", 10)), "dgo");
+        PawfectTests.checkEquals(Arrays.asList("Max"), PawfectTests.names(index.search("ma", 10)), "ma");
+        PawfectTests.checkEquals(Arrays.asList("Mingming", "Nina"), sorted(index.search("c", 10)), "c");
+        PawfectTests.checkEquals(Collections.emptyList(), index.search("qz", 10), "qz");
+    }
+
+    static void ranking() {
+        PetCatalog catalog = new PetCatalog();
+        PetSearchIndex index = seeded(catalog);
+        catalog.addPet(new Pet("Rexy", "X1", "Dog", 2, "Aspin"));
+        catalog.addPet(new Pet("Bolt", "X2", "Dog", 2, "Rex Terrier"));
+        List<String> rex = PawfectTests.names(index.search("rex", 10));
+        PawfectTests.checkEquals("Rex", rex.get(0), "exact name first: " + rex);
+        PawfectTests.check(rex.indexOf("Rexy") > 0 && rex.contains("Bolt"), "rex: " + rex);
+        PawfectTests.checkEquals(2, index.search("dog", 2).size(), "limited results");
+        PawfectTests.checkEquals(Collections.emptyList(), index.search("dog", 0), "limit 0");
+    }
+
+    static void availability() {
+        PetCatalog catalog = new PetCatalog();
+        PetSearchIndex index = seeded(catalog);
+        Pet max = catalog.getPet("D002");
+        PawfectTests.check(max.transition(Pet.AdoptionStatus.AVAILABLE, Pet.AdoptionStatus.PENDING), "reserve");
+        PawfectTests.checkEquals(Collections.emptyList(), index.search("labrador", 10), "reserved pet");
+        PawfectTests.check(max.transition(Pet.AdoptionStatus.PENDING, Pet.AdoptionStatus.AVAILABLE), "release");
+        PawfectTests.checkEquals(Arrays.asList("Max"), PawfectTests.names(index.search("labrador", 10)), "released pet");
+        max.transition(Pet.AdoptionStatus.AVAILABLE, Pet.AdoptionStatus.PENDING);
+        max.transition(Pet.AdoptionStatus.PENDING, Pet.AdoptionStatus.ADOPTED);
+        PawfectTests.checkEquals(Collections.emptyList(), index.search("labrador", 10), "adopted pet");
+
+        Pet late = new Pet("Luna", "L1", "Dog", 1, "Labrador");
+        catalog.addPet(late);
+        PawfectTests.checkEquals(Arrays.asList("Luna"), PawfectTests.names(index.search("labrador", 10)), "pet added later");
+    }
+
+    static void oneEdit() {
+        String[][] within = {{"mx", "max"}, {"max", "mx"}, {"dgo", "dog"}, {"cat", "cot"}, {"cat", "cat"}, {"a", ""},
+            {"pug", "pugs"}, {"ab", "ba"}};
+        for (String[] pair : within) {
+            PawfectTests.check(PetSearchIndex.withinOneEdit(pair[0], pair[1]), pair[0] + " ~ " + pair[1]);
+        }
+        String[][] beyond = {{"mx", "mixed"}, {"dog", "god"}, {"cat", "dots"}, {"ab", "abcd"}, {"abc", "bca"}};
+        for (String[] pair : beyond) {
+            PawfectTests.check(!PetSearchIndex.withinOneEdit(pair[0], pair[1]), pair[0] + " !~ " + pair[1]);
+        }
+    }
+
+    // The pets PawfectMatch seeds on first start
+    private static PetSearchIndex seeded(PetCatalog catalog) {
+        catalog.addPet(new Pet("Bantay", "D001", "Dog", 3, "Aspin"));
+        catalog.addPet(new Pet("Mingming", "C001", "Cat", 2, "Siamese"));
+        catalog.addPet(new Pet("Max", "D002", "Dog", 4, "Labrador Retriever"));
+        catalog.addPet(new Pet("Nina", "C002", "Cat", 3, "Persian"));
+        catalog.addPet(new Pet("Rex", "D003", "Dog", 5, "German Shepherd"));
+        PetSearchIndex index = new PetSearchIndex(catalog);
+        index.rebuild();
+        catalog.addListener(index);
+        return index;
+    }
+
+    private static String first(PetSearchIndex index, String query) {
+        List<Pet> found = index.search(query, 10);
+        return found.isEmpty() ? null : found.get(0).getName();
+    }
+
+    private static List<String> sorted(List<Pet> pets) {
+        List<String> names = PawfectTests.names(pets);
+        Collections.sort(names);
+        return names;
+    }
+}
@@ -0,0 +1,39 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+// The services PawfectMatch.main wires together, saving to one directory; a new world on the
+// same directory is what the next start of the program would see
+class TestWorld implements Closeable {
+    final UserRegistry users = new UserRegistry();
+    final ShelterNetwork catalog;
+    final AdoptionEngine engine = new AdoptionEngine();
+    final PersistentStore store;
+    final AdoptionService service;
+
+    TestWorld(Path dir) throws IOException {
+        catalog = new ShelterNetwork(shelter -> new PetCatalog());
+        engine.getStore().addListener(catalog);
+        store = new PersistentStore(dir, users, catalog, engine);
+        store.restore();
+        for (AdminUser admin : users.getAdmins()) {
+            catalog.open(admin.getShelter());
+        }
+        service = new AdoptionService(users, catalog, engine, store);
+    }
+
+    AdminUser admin(String username) {
+        AdminUser admin = users.getAdmin(username);
+        if (admin == null) {
+            admin = new AdminUser(username, "pw", username + "@mail.com");
+            users.addAdmin(admin);
+            store.userRegistered(admin);
+        }
+        return admin;
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+}